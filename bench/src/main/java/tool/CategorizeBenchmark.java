@@ -0,0 +1,98 @@
+package tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Categorizing a purchase file against data.xls, sequentially (categorizeItem per item group)
+ * and in parallel (categorizeParallel), including reading the sheet into a PurchaseTable.
+ * hashTotals and sortTotals only total the rows the two ways categorizeUnsorted can.
+ * The writer is made fresh for every invocation and never saved.
+ * Purchase rows stop at 65535, the most an .xls sheet can hold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategorizeBenchmark {
+
+	@Param({"10000", "30000", "65535"})
+	public int numRows;
+
+	@Param({"30000"})
+	public int numItems;
+
+	private File directory;
+	private File purchaseFile;
+	private ExcelReader reader;
+	private HSSFSheet sheet;
+	private ExcelWriter writer;
+
+	@Setup
+	public void setup() throws IOException{
+		ExcelReader.HISTORICAL_DATA = true;
+		directory = SyntheticData.tempDirectory();
+		SyntheticData data = new SyntheticData(numItems, 42);
+		User user = data.user(directory);
+		purchaseFile = new File(directory, "purchases.xls");
+		data.writePurchases(purchaseFile, numRows);
+		reader = new ExcelReader(user);
+		user.resources = reader;
+		sheet = reader.loadBook(purchaseFile).getSheetAt(0);
+	}
+
+	@Setup(Level.Invocation)
+	public void newWriter() throws IOException{
+		writer = new ExcelWriter(reader.user, purchaseFile, ExcelWriter.FOOD_CATEGORIZATION);
+	}
+
+	@TearDown
+	public void tearDown(){
+		SyntheticData.delete(directory);
+	}
+
+	@Benchmark
+	public ExcelWriter sequential(){
+		PurchaseTable table = new PurchaseTable(sheet, ColumnSchema.DEFAULT);
+		int currentRow = table.firstRow();
+		while(currentRow <= table.lastRow()){
+			currentRow = Categorize.categorizeItem(currentRow, table, reader, writer) + 1;
+		}
+		return writer;
+	}
+
+	@Benchmark
+	public ExcelWriter parallel(){
+		PurchaseTable table = new PurchaseTable(sheet, ColumnSchema.DEFAULT);
+		Categorize.categorizeParallel(table.firstRow(), table, reader, writer);
+		return writer;
+	}
+
+	@Benchmark
+	public PurchaseTotals hashTotals(){
+		return PurchaseTotals.hashed(new PurchaseTable(sheet, ColumnSchema.DEFAULT));
+	}
+
+	@Benchmark
+	public PurchaseTotals sortTotals(){
+		return PurchaseTotals.sorted(new PurchaseTable(sheet, ColumnSchema.DEFAULT));
+	}
+}
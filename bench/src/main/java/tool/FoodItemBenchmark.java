@@ -0,0 +1,66 @@
+package tool;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * FoodItem identifiers and equality, compared with the ItemKey used for lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodItemBenchmark {
+	private static final int ITEMS = 1024;
+
+	private FoodItem[] items;
+	private FoodItem[] copies; //same items with the name in another case, like a purchase file
+
+	@Setup
+	public void setup(){
+		Random random = new Random(42);
+		items = new FoodItem[ITEMS];
+		copies = new FoodItem[ITEMS];
+		for(int i = 0; i<ITEMS; i++){
+			String name = "item " + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36) + " " + i;
+			String vendor = "vendor " + random.nextInt(40);
+			items[i] = new FoodItem(name, "cs", vendor, 1.0, 1.0);
+			copies[i] = new FoodItem(name.toUpperCase() + " ", "cs", vendor, 2.0, 3.0);
+		}
+	}
+
+	@Benchmark
+	public void identifier(Blackhole blackhole){
+		for(FoodItem item : items){
+			blackhole.consume(item.identifier());
+		}
+	}
+
+	@Benchmark
+	public void itemEquals(Blackhole blackhole){
+		for(int i = 0; i<ITEMS; i++){
+			blackhole.consume(items[i].equals(copies[i]));
+		}
+	}
+
+	@Benchmark
+	public void keyEquals(Blackhole blackhole){
+		for(int i = 0; i<ITEMS; i++){
+			blackhole.consume(items[i].key().equals(copies[i].key()));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Importing data.xls into currentData: the event API stream, the full workbook load (fallback),
+ * the binary snapshot, and importRow on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+
+	@Param({"10000", "30000", "65000"})
+	public int numItems;
+
+	private File directory;
+	private File dataFile;
+	private ExcelReader reader;
+	private ArrayList<HSSFRow> rows;
+
+	@Setup
+	public void setup() throws IOException{
+		ExcelReader.HISTORICAL_DATA = true;
+		directory = SyntheticData.tempDirectory();
+		User user = new SyntheticData(numItems, 42).user(directory);
+		dataFile = user.utils.getFile("data");
+		reader = new ExcelReader(user); //also writes the snapshot
+		user.resources = reader;
+		HSSFWorkbook book = reader.loadBook(dataFile);
+		HSSFSheet sheet = book.getSheetAt(book.getNumberOfSheets()-1);
+		rows = new ArrayList<HSSFRow>(numItems);
+		for(int i = ExcelReader.HEADER_ROW+1; i<=sheet.getLastRowNum(); i++){
+			rows.add(sheet.getRow(i));
+		}
+	}
+
+	@TearDown
+	public void tearDown(){
+		SyntheticData.delete(directory);
+	}
+
+	@Benchmark
+	public ItemIndex importStream() throws IOException{
+		reader.currentData = new ItemIndex();
+		reader.setHeader(null);
+		new DataStreamReader(reader, new DataJournal(dataFile)).read(dataFile);
+		return reader.currentData;
+	}
+
+	@Benchmark
+	public ItemIndex importBook() throws IOException{
+		reader.currentData = new ItemIndex();
+		reader.importBook();
+		return reader.currentData;
+	}
+
+	@Benchmark
+	public ItemIndex importSnapshot(){
+		reader.currentData = new ItemIndex();
+		if(!DataSnapshot.load(reader, dataFile)){
+			throw new IllegalStateException("Snapshot of " + dataFile + " was not used.");
+		}
+		return reader.currentData;
+	}
+
+	@Benchmark
+	public void importRow(Blackhole blackhole){
+		for(HSSFRow row : rows){
+			blackhole.consume(reader.importRow(row));
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the ItemIndex used for currentData with the TreeMap it replaced:
+ * point lookups (as done per item group while categorizing), building the index, and sorted iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemIndexBenchmark {
+
+	@Param({"5000", "30000"})
+	public int numItems;
+
+	private ArrayList<FoodItem> items;
+	private ItemKey[] lookups; //copies of the keys, like the ones made from a purchase file
+	private TreeMap<ItemKey, FoodItem> treeMap;
+	private ItemIndex index;
+
+	@Setup
+	public void setup(){
+		Random random = new Random(42);
+		items = new ArrayList<FoodItem>(numItems);
+		for(int i = 0; i<numItems; i++){
+			items.add(new FoodItem("item " + Integer.toString(random.nextInt(), 36) + " " + i, "cs", "vendor " + random.nextInt(40), 1.0, 1.0));
+		}
+		treeMap = new TreeMap<ItemKey, FoodItem>();
+		index = new ItemIndex(numItems);
+		for(FoodItem item : items){
+			treeMap.put(item.key(), item);
+			index.put(item.key(), item);
+		}
+		lookups = new ItemKey[4096];
+		for(int i = 0; i<lookups.length; i++){
+			FoodItem item = items.get(random.nextInt(numItems));
+			lookups[i] = new ItemKey(item.getItemName(), item.getVendor(), item.getReceiveUnit());
+		}
+	}
+
+	@Benchmark
+	public void treeMapGet(Blackhole hole){
+		for(ItemKey key : lookups){
+			hole.consume(treeMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public void itemIndexGet(Blackhole hole){
+		for(ItemKey key : lookups){
+			hole.consume(index.get(key));
+		}
+	}
+
+	@Benchmark
+	public TreeMap<ItemKey, FoodItem> treeMapBuild(){
+		TreeMap<ItemKey, FoodItem> map = new TreeMap<ItemKey, FoodItem>();
+		for(FoodItem item : items){
+			map.put(item.key(), item);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public ItemIndex itemIndexBuild(){
+		ItemIndex built = new ItemIndex();
+		for(FoodItem item : items){
+			built.put(item.key(), item);
+		}
+		return built;
+	}
+
+	@Benchmark
+	public void treeMapSortedIteration(Blackhole hole){
+		for(FoodItem item : treeMap.values()){
+			hole.consume(item);
+		}
+	}
+
+	@Benchmark
+	public void itemIndexSortedIteration(Blackhole hole){
+		for(FoodItem item : index.values()){
+			hole.consume(item);
+		}
+	}
+
+	@Benchmark
+	public void itemIndexSortAfterWrite(Blackhole hole){
+		FoodItem item = items.get(0);
+		index.put(item.key(), item); //invalidates the sorted view
+		for(FoodItem current : index.values()){
+			hole.consume(current);
+		}
+	}
+}
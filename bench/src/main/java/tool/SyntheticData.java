@@ -0,0 +1,187 @@
+package tool;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+
+/**
+ * Generates data.xls and purchase files shaped like the real ones, for the benchmarks.
+ * Run on its own to write a set of files to a directory:
+ * java -cp benchmarks.jar tool.SyntheticData [directory] [data items] [purchase rows]
+ */
+public class SyntheticData {
+	private static final String[] UNITS = {"cs", "ea", "lb", "bx", "gal", "dz"};
+	private static final String[] FAO = {"Meat", "Dairy", "Grains", "Vegetables", "Fruit", "Fish", "Eggs", "Oils"};
+	private static final String[] FISCAL_YEARS = {"FY12", "FY13", "FY14", "FY15", "FY16", "FY17"};
+	private static final int VENDORS = 40;
+	private static final ColumnSchema COLUMNS = ColumnSchema.DEFAULT; //settings.txt's columns
+
+	private int numItems;
+	private String[] names;
+	private String[] units;
+	private String[] vendors;
+
+	/**
+	 * @param numItems number of items in data.xls
+	 * @param seed random seed, so runs use the same files
+	 */
+	public SyntheticData(int numItems, long seed){
+		this.numItems = numItems;
+		Random random = new Random(seed);
+		names = new String[numItems];
+		units = new String[numItems];
+		vendors = new String[numItems];
+		for(int i = 0; i<numItems; i++){
+			names[i] = "item " + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36) + " " + i;
+			units[i] = UNITS[random.nextInt(UNITS.length)];
+			vendors[i] = "vendor " + random.nextInt(VENDORS);
+		}
+	}
+
+	/**
+	 * Write a data.xls: a Meta sheet and one data sheet with a header row, FAO categories and fiscal year columns.
+	 * @param file file to write
+	 */
+	public void writeData(File file) throws IOException{
+		Random random = new Random(numItems);
+		HSSFWorkbook book = new HSSFWorkbook();
+		HSSFSheet meta = book.createSheet("Meta");
+		meta.createRow(0).createCell(1).setCellValue(12);
+		HSSFSheet sheet = book.createSheet("DataSheet bench");
+		HSSFRow header = sheet.createRow(ExcelReader.HEADER_ROW);
+		header.createCell(COLUMNS.itemName).setCellValue("Item Name");
+		header.createCell(COLUMNS.rcvUnit).setCellValue("Received Unit");
+		header.createCell(COLUMNS.vendor).setCellValue("Vendor");
+		for(int z = 0; z<4; z++){
+			header.createCell(COLUMNS.readFao+z).setCellValue("FAO " + z);
+		}
+		header.createCell(COLUMNS.readWeightPerUnit).setCellValue("Weight Per Unit");
+		header.createCell(COLUMNS.readWeightUnit).setCellValue("Unit Weight");
+		for(int y = 0; y<FISCAL_YEARS.length; y++){
+			header.createCell(COLUMNS.readWeightUnit+1+y).setCellValue(FISCAL_YEARS[y]);
+		}
+		for(int i = 0; i<numItems; i++){
+			HSSFRow row = sheet.createRow(ExcelReader.HEADER_ROW+1+i);
+			row.createCell(COLUMNS.itemName).setCellValue(names[i]);
+			row.createCell(COLUMNS.rcvUnit).setCellValue(units[i]);
+			row.createCell(COLUMNS.vendor).setCellValue(vendors[i]);
+			int categories = random.nextInt(3);
+			for(int z = 0; z<categories; z++){
+				row.createCell(COLUMNS.readFao+z).setCellValue(FAO[random.nextInt(FAO.length)]);
+			}
+			row.createCell(COLUMNS.readWeightPerUnit).setCellValue(1 + random.nextInt(500)/10.0);
+			row.createCell(COLUMNS.readWeightUnit).setCellValue(random.nextBoolean() ? "lb" : "oz");
+			for(int y = 0; y<FISCAL_YEARS.length; y++){
+				if(random.nextInt(3) == 0){
+					row.createCell(COLUMNS.readWeightUnit+1+y).setCellValue(ExcelReader.HISTORICAL_TRUE);
+				}
+			}
+		}
+		write(book, file);
+	}
+
+	/**
+	 * Write a purchase file: one sheet with a header row, then rows of name, receive unit, vendor, quantity and price.
+	 * Purchases of the same item are next to each other, and most of them match an item in data.xls.
+	 * @param file file to write
+	 * @param numRows number of purchase rows (at most 65535)
+	 */
+	public void writePurchases(File file, int numRows) throws IOException{
+		Random random = new Random(numRows);
+		HSSFWorkbook book = new HSSFWorkbook();
+		HSSFSheet sheet = book.createSheet("Purchases");
+		HSSFRow header = sheet.createRow(0);
+		header.createCell(COLUMNS.itemName).setCellValue("Item Name");
+		header.createCell(COLUMNS.rcvUnit).setCellValue("Received Unit");
+		header.createCell(COLUMNS.vendor).setCellValue("Vendor");
+		header.createCell(COLUMNS.quantity).setCellValue("Quantity");
+		header.createCell(COLUMNS.price).setCellValue("Price");
+		int rowNum = 1;
+		while(rowNum <= numRows){
+			int i = random.nextInt(numItems);
+			String name = random.nextInt(10) == 0 ? "unknown " + names[i] : names[i].toUpperCase();
+			int purchases = 1 + random.nextInt(4);
+			for(int k = 0; k<purchases && rowNum <= numRows; k++){
+				HSSFRow row = sheet.createRow(rowNum++);
+				row.createCell(COLUMNS.itemName).setCellValue(name);
+				row.createCell(COLUMNS.rcvUnit).setCellValue(units[i]);
+				row.createCell(COLUMNS.vendor).setCellValue(random.nextInt(4) == 0 ? "vendor " + random.nextInt(VENDORS) : vendors[i]);
+				row.createCell(COLUMNS.quantity).setCellValue(1 + random.nextInt(10));
+				row.createCell(COLUMNS.price).setCellValue(random.nextInt(5000)/100.0);
+			}
+		}
+		write(book, file);
+	}
+
+	/**
+	 * Make a User whose resource files (data.xls, log.txt, info.txt, backups) are in the given directory.
+	 * data.xls is written if it is not there yet.
+	 * @param directory directory for the files
+	 * @return user without a GUI or resources
+	 */
+	public User user(File directory) throws IOException{
+		directory.mkdirs();
+		File data = new File(directory, "data.xls");
+		if(!data.exists()){
+			writeData(data);
+		}
+		new File(directory, "log.txt").createNewFile();
+		new File(directory, "info.txt").createNewFile();
+		new File(directory, "backups").mkdirs();
+		User user = new User("bench");
+		user.utils.setFilePath("data", data.getPath());
+		user.utils.setFilePath("log", new File(directory, "log.txt").getPath());
+		user.utils.setFilePath("info", new File(directory, "info.txt").getPath());
+		user.utils.setFilePath("backups", new File(directory, "backups").getPath() + File.separator);
+		return user;
+	}
+
+	/**
+	 * Make a temporary directory for benchmark files.
+	 */
+	public static File tempDirectory() throws IOException{
+		File directory = File.createTempFile("bench", "");
+		directory.delete();
+		directory.mkdirs();
+		return directory;
+	}
+
+	/**
+	 * Delete a directory made by tempDirectory.
+	 */
+	public static void delete(File file){
+		File[] files = file.listFiles();
+		if(files != null){
+			for(File child : files){
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static void write(HSSFWorkbook book, File file) throws IOException{
+		OutputStream out = new FileOutputStream(file);
+		try{
+			book.write(out);
+		} finally{
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException{
+		File directory = new File(args.length > 0 ? args[0] : ".");
+		int numItems = args.length > 1 ? Integer.parseInt(args[1]) : 30000;
+		int numRows = args.length > 2 ? Integer.parseInt(args[2]) : 30000;
+		directory.mkdirs();
+		SyntheticData data = new SyntheticData(numItems, 42);
+		data.writeData(new File(directory, "data.xls"));
+		data.writePurchases(new File(directory, "purchases.xls"), numRows);
+		System.out.println("Wrote data.xls (" + numItems + " items) and purchases.xls (" + numRows + " rows) to " + directory.getAbsolutePath());
+	}
+}
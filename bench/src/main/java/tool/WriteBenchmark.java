@@ -0,0 +1,90 @@
+package tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing categorized items: writeToExcel looking each item up in currentData (writeToCalculated),
+ * and with the lookup already done (as the parallel categorization does).
+ * The writer is made fresh for every invocation and never saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+	@Param({"10000", "30000"})
+	public int numItems;
+
+	private File directory;
+	private File purchaseFile;
+	private ExcelReader reader;
+	private List<FoodItem> items;
+	private List<FoodItem> matches;
+	private ExcelWriter writer;
+
+	@Setup
+	public void setup() throws IOException{
+		ExcelReader.HISTORICAL_DATA = true;
+		directory = SyntheticData.tempDirectory();
+		SyntheticData data = new SyntheticData(numItems, 42);
+		User user = data.user(directory);
+		purchaseFile = new File(directory, "purchases.xls");
+		data.writePurchases(purchaseFile, 1);
+		reader = new ExcelReader(user);
+		user.resources = reader;
+		items = new ArrayList<FoodItem>(numItems);
+		matches = new ArrayList<FoodItem>(numItems);
+		for(FoodItem current : reader.currentData.values()){
+			FoodItem item = new FoodItem(current.getItemName().toUpperCase(), current.getReceiveUnit(), current.getVendor(), 10.0, 2.0);
+			items.add(item);
+			matches.add(reader.getItem(item.key()));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void newWriter() throws IOException{
+		writer = new ExcelWriter(reader.user, purchaseFile, ExcelWriter.FOOD_CATEGORIZATION);
+	}
+
+	@TearDown
+	public void tearDown(){
+		SyntheticData.delete(directory);
+	}
+
+	@Benchmark
+	public ExcelWriter writeToCalculated(){
+		for(FoodItem item : items){
+			writer.writeToExcel(item);
+		}
+		return writer;
+	}
+
+	@Benchmark
+	public ExcelWriter writeLookedUp(){
+		for(int i = 0; i<items.size(); i++){
+			writer.writeToExcel(items.get(i), matches.get(i));
+		}
+		return writer;
+	}
+}
@@ -0,0 +1,99 @@
+package tool;
+
+import java.util.Arrays;
+
+/**
+ * Running cost and quantity totals of many groups, kept in primitive arrays indexed by group id
+ * (replaces one CostsAndQuantities object per group). Adding a purchase row allocates nothing.
+ * Sums use Neumaier's compensated summation, so a total of many rows keeps the precision of a single addition
+ * instead of piling up rounding error. In CENTS mode each row's cost is rounded to the cent and the costs
+ * are summed exactly as longs, the way an invoice adds up.
+ * Rows are always added in sheet order, so the totals are the same on every run.
+ * @dateEdited 10-18-2026
+ */
+class Accumulators {
+	protected static final int COMPENSATED = 0; //Costs are compensated sums of doubles
+	protected static final int CENTS = 1; //Costs are rounded to cents per row and summed exactly
+	protected static int COST_MODE = COMPENSATED;
+
+	private int mode;
+	private double[] costs;
+	private double[] costErrors; //running compensation of each cost
+	private long[] cents;
+	private double[] quantities;
+	private double[] quantityErrors;
+
+	/**
+	 * @param capacity number of groups to make room for
+	 */
+	Accumulators(int capacity){
+		mode = COST_MODE;
+		quantities = new double[capacity];
+		quantityErrors = new double[capacity];
+		if(mode == CENTS){
+			cents = new long[capacity];
+		} else{
+			costs = new double[capacity];
+			costErrors = new double[capacity];
+		}
+	}
+
+	/**
+	 * Make room for more groups. New groups start at 0.
+	 * @param capacity number of groups to make room for
+	 */
+	protected void grow(int capacity){
+		quantities = Arrays.copyOf(quantities, capacity);
+		quantityErrors = Arrays.copyOf(quantityErrors, capacity);
+		if(mode == CENTS){
+			cents = Arrays.copyOf(cents, capacity);
+		} else{
+			costs = Arrays.copyOf(costs, capacity);
+			costErrors = Arrays.copyOf(costErrors, capacity);
+		}
+	}
+
+	protected int capacity(){
+		return quantities.length;
+	}
+
+	/**
+	 * Add a purchase row to a group.
+	 * @param group group id
+	 * @param price price of the row
+	 * @param qty quantity of the row
+	 */
+	protected void add(int group, double price, double qty){
+		if(mode == CENTS){
+			cents[group] += Math.round(qty*price*100);
+		} else{
+			add(costs, costErrors, group, qty*price);
+		}
+		add(quantities, quantityErrors, group, qty);
+	}
+
+	protected double cost(int group){
+		if(mode == CENTS){
+			return cents[group]/100.0;
+		}
+		return costs[group] + costErrors[group];
+	}
+
+	protected double quantity(int group){
+		return quantities[group] + quantityErrors[group];
+	}
+
+	/**
+	 * Neumaier summation: the rounding error of each addition is kept apart and added back at the end.
+	 */
+	private static void add(double[] sums, double[] errors, int group, double value){
+		double sum = sums[group];
+		double total = sum + value;
+		if(Math.abs(sum) >= Math.abs(value)){
+			errors[group] += (sum - total) + value;
+		} else{
+			errors[group] += (value - total) + sum;
+		}
+		sums[group] = total;
+	}
+}
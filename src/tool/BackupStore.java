@@ -0,0 +1,510 @@
+package tool;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Content addressed store of data.xls backups, kept in the backups folder.
+ * A backup splits data.xls and its journal into chunks at content defined boundaries (a rolling hash of the
+ * last bytes), so a change in one part of the file only changes the chunks around it. Each chunk is stored once,
+ * as chunks/ab/abcd... named by its SHA-256, and a backup is a small text manifest (snapshots/NAME) listing the
+ * chunks of each file. Backups of an unchanged data.xls write only the manifest.
+ * Restoring copies the chunks into place with FileChannel.transferTo and checks each one against its hash.
+ * Old backups are pruned by the retention policy: the newest KEEP_LAST, and the newest of each of the last
+ * KEEP_DAYS days; chunks no backup uses any more are deleted.
+ * The store is locked (store.lock) while it is changed, so several runs can share it.
+ * @dateEdited 10-18-2026
+ */
+class BackupStore {
+	protected static int KEEP_LAST = 10; //Newest backups that are always kept
+	protected static int KEEP_DAYS = 30; //Days for which the newest backup of the day is kept
+
+	private static final String HEADER = "data.xls backup 1";
+	private static final String DATA = "data";
+	private static final String JOURNAL = "journal";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int MIN_CHUNK = 2*1024;
+	private static final int MAX_CHUNK = 64*1024;
+	private static final long BOUNDARY_MASK = ((1L << 13) - 1) << 51; //Top 13 bits: 8 KB chunks on average
+	private static final long[] GEAR = gear();
+	private static final Object LOCK = new Object(); //FileLock can not be held twice in one JVM
+
+	private File directory;
+	private File snapshots;
+	private File chunks;
+	protected long bytesWritten; //Size of the new chunks written by the last backup
+
+	/**
+	 * @param directory backups folder
+	 */
+	BackupStore(File directory){
+		this.directory = directory;
+		snapshots = new File(directory, "snapshots");
+		chunks = new File(directory, "chunks");
+	}
+
+	/**
+	 * Back up data.xls and its journal.
+	 * @param dataFile data.xls
+	 * @param userName user making the backup (part of the backup's name)
+	 * @return the new backup
+	 * @throws IOException
+	 */
+	protected Snapshot backup(File dataFile, String userName) throws IOException{
+		synchronized(LOCK){
+			FileChannel lockChannel = lock();
+			try{
+				bytesWritten = 0;
+				Snapshot last = latest();
+				Snapshot snapshot = new Snapshot();
+				snapshot.created = System.currentTimeMillis();
+				snapshot.user = userName;
+				snapshot.data = store(dataFile, last == null ? null : last.data);
+				File journalFile = DataJournal.journalFile(dataFile);
+				if(journalFile.exists()){
+					snapshot.journal = store(journalFile, last == null ? null : last.journal);
+				}
+				snapshot.name = newName(snapshot.created, userName);
+				writeManifest(snapshot);
+				return snapshot;
+			} finally{
+				lockChannel.close();
+			}
+		}
+	}
+
+	/**
+	 * Put data.xls (and its journal, or no journal) back as they were in a backup.
+	 * The journal's header ties it to data.xls's length and modification time, so both are restored.
+	 * @param name name of the backup
+	 * @param dataFile data.xls
+	 * @return the backup restored
+	 * @throws IOException if there is no such backup, or a chunk is missing or damaged
+	 */
+	protected Snapshot restore(String name, File dataFile) throws IOException{
+		synchronized(LOCK){
+			FileChannel lockChannel = lock();
+			try{
+				Snapshot snapshot = readManifest(new File(snapshots, name));
+				File journalFile = DataJournal.journalFile(dataFile);
+				File dataTemp = rebuild(snapshot.data, dataFile);
+				File journalTemp = snapshot.journal == null ? null : rebuild(snapshot.journal, journalFile);
+				move(dataTemp, dataFile, snapshot.data.modified);
+				if(journalTemp != null){
+					move(journalTemp, journalFile, snapshot.journal.modified);
+				} else{
+					journalFile.delete();
+				}
+				return snapshot;
+			} finally{
+				lockChannel.close();
+			}
+		}
+	}
+
+	/**
+	 * @param name name of a backup
+	 * @return true if the store has a backup with that name
+	 */
+	protected boolean exists(String name){
+		return !name.endsWith(".tmp") && new File(snapshots, name).isFile();
+	}
+
+	/**
+	 * @return every backup, oldest first
+	 * @throws IOException
+	 */
+	protected List<Snapshot> list() throws IOException{
+		ArrayList<Snapshot> list = new ArrayList<Snapshot>();
+		String[] names = snapshots.list();
+		if(names == null){
+			return list;
+		}
+		Arrays.sort(names); //Names start with the time of the backup
+		for(String name : names){
+			if(!name.endsWith(".tmp")){
+				list.add(readManifest(new File(snapshots, name)));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Delete the backups the retention policy does not keep, then the chunks no backup uses.
+	 * @return number of backups deleted
+	 * @throws IOException
+	 */
+	protected int prune() throws IOException{
+		synchronized(LOCK){
+			FileChannel lockChannel = lock();
+			try{
+				List<Snapshot> all = list();
+				Collections.reverse(all); //Newest first
+				SimpleDateFormat day = new SimpleDateFormat("yyyy-MM-dd");
+				long oldest = System.currentTimeMillis() - KEEP_DAYS*24L*60*60*1000;
+				HashSet<String> days = new HashSet<String>();
+				HashSet<String> used = new HashSet<String>();
+				int removed = 0;
+				for(int i = 0; i<all.size(); i++){
+					Snapshot snapshot = all.get(i);
+					boolean firstOfDay = days.add(day.format(new Date(snapshot.created)));
+					if(i < KEEP_LAST || (firstOfDay && snapshot.created >= oldest)){
+						snapshot.addChunks(used);
+					} else if(new File(snapshots, snapshot.name).delete()){
+						removed++;
+					}
+				}
+				deleteUnused(used);
+				return removed;
+			} finally{
+				lockChannel.close();
+			}
+		}
+	}
+
+	/**
+	 * Store the chunks of a file that are not in the store yet.
+	 * If the file has the same length and modification time as in the last backup, its chunks are reused
+	 * without reading it (the same check DataJournal and WorkbookCache rely on).
+	 */
+	private FileEntry store(File file, FileEntry last) throws IOException{
+		if(last != null && last.length == file.length() && last.modified == file.lastModified() && isStored(last)){
+			return last;
+		}
+		FileEntry entry = new FileEntry();
+		entry.modified = file.lastModified();
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		entry.length = bytes.length;
+		ArrayList<String> hashes = new ArrayList<String>();
+		ArrayList<Integer> sizes = new ArrayList<Integer>();
+		int start = 0;
+		while(start < bytes.length){
+			int end = boundary(bytes, start);
+			String hash = hash(bytes, start, end - start);
+			File chunk = chunkFile(hash);
+			if(!chunk.exists()){
+				writeChunk(chunk, bytes, start, end - start);
+				bytesWritten += end - start;
+			}
+			hashes.add(hash);
+			sizes.add(end - start);
+			start = end;
+		}
+		entry.chunks = hashes.toArray(new String[hashes.size()]);
+		entry.sizes = new int[sizes.size()];
+		for(int i = 0; i<entry.sizes.length; i++){
+			entry.sizes[i] = sizes.get(i);
+		}
+		if(file.length() != entry.length || file.lastModified() != entry.modified){
+			throw new IOException(file.getName() + " changed during the backup");
+		}
+		return entry;
+	}
+
+	/**
+	 * @return true if every chunk of the file is still in the store
+	 */
+	private boolean isStored(FileEntry entry){
+		for(int i = 0; i<entry.chunks.length; i++){
+			if(chunkFile(entry.chunks[i]).length() != entry.sizes[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the end of the chunk starting at start: the first position past MIN_CHUNK where the gear hash
+	 * of the bytes before it has its top bits clear, or MAX_CHUNK.
+	 */
+	private static int boundary(byte[] bytes, int start){
+		int end = Math.min(bytes.length, start + MAX_CHUNK);
+		long hash = 0;
+		for(int i = start; i<end; i++){
+			hash = (hash << 1) + GEAR[bytes[i] & 0xff];
+			if(i - start + 1 >= MIN_CHUNK && (hash & BOUNDARY_MASK) == 0){
+				return i + 1;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Write a chunk to a temporary file and move it into place, so a chunk under its hash is always complete.
+	 */
+	private void writeChunk(File chunk, byte[] bytes, int start, int length) throws IOException{
+		chunk.getParentFile().mkdirs();
+		File temp = new File(chunk.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try{
+			out.write(bytes, start, length);
+		} finally{
+			out.close();
+		}
+		Files.move(temp.toPath(), chunk.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Copy the chunks of a file into a temporary file next to the target, and check them against their hashes.
+	 * @return the temporary file
+	 */
+	private File rebuild(FileEntry entry, File target) throws IOException{
+		File temp = new File(target.getPath() + ".restore");
+		FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try{
+			for(int i = 0; i<entry.chunks.length; i++){
+				File chunk = chunkFile(entry.chunks[i]);
+				if(chunk.length() != entry.sizes[i]){
+					throw new IOException("Missing or damaged backup chunk " + entry.chunks[i]);
+				}
+				FileChannel in = FileChannel.open(chunk.toPath(), StandardOpenOption.READ);
+				try{
+					long copied = 0;
+					while(copied < entry.sizes[i]){
+						copied += in.transferTo(copied, entry.sizes[i] - copied, out);
+					}
+				} finally{
+					in.close();
+				}
+			}
+		} finally{
+			out.close();
+		}
+		byte[] bytes = Files.readAllBytes(temp.toPath());
+		int start = 0;
+		for(int i = 0; i<entry.chunks.length; i++){
+			if(!hash(bytes, start, entry.sizes[i]).equals(entry.chunks[i])){
+				temp.delete();
+				throw new IOException("Damaged backup chunk " + entry.chunks[i]);
+			}
+			start += entry.sizes[i];
+		}
+		return temp;
+	}
+
+	private static void move(File temp, File target, long modified) throws IOException{
+		Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		target.setLastModified(modified);
+	}
+
+	/**
+	 * Delete the chunks (and temporary files left by a crash) that are not in the set of used hashes.
+	 */
+	private void deleteUnused(HashSet<String> used){
+		File[] folders = chunks.listFiles();
+		if(folders == null){
+			return;
+		}
+		for(File folder : folders){
+			File[] files = folder.listFiles();
+			if(files == null){
+				continue;
+			}
+			for(File file : files){
+				if(!used.contains(file.getName())){
+					file.delete();
+				}
+			}
+			folder.delete(); //Only if it is empty
+		}
+	}
+
+	private File chunkFile(String hash){
+		return new File(new File(chunks, hash.substring(0, 2)), hash);
+	}
+
+	/**
+	 * @return the newest backup, or null if there is none (or it can not be read)
+	 */
+	private Snapshot latest(){
+		try{
+			List<Snapshot> all = list();
+			return all.isEmpty() ? null : all.get(all.size() - 1);
+		} catch(IOException e){
+			return null;
+		}
+	}
+
+	/**
+	 * @return "yyyy-MM-dd_HHmmss_user", with a number added if a backup with that name exists
+	 */
+	private String newName(long created, String userName){
+		String name = new SimpleDateFormat("yyyy-MM-dd_HHmmss").format(new Date(created)) + "_"
+				+ userName.replaceAll("[^A-Za-z0-9-]", "_");
+		String unique = name;
+		for(int i = 2; new File(snapshots, unique).exists(); i++){
+			unique = name + "_" + i;
+		}
+		return unique;
+	}
+
+	private FileChannel lock() throws IOException{
+		directory.mkdirs();
+		FileChannel channel = FileChannel.open(new File(directory, "store.lock").toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		try{
+			FileLock lock = channel.lock();
+			if(lock == null){
+				throw new IOException("Unable to lock the backup store");
+			}
+		} catch(IOException e){
+			channel.close();
+			throw e;
+		}
+		return channel; //Closing the channel releases the lock
+	}
+
+	private void writeManifest(Snapshot snapshot) throws IOException{
+		snapshots.mkdirs();
+		File temp = new File(snapshots, snapshot.name + ".tmp");
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), UTF8));
+		try{
+			out.println(HEADER);
+			out.println("created " + snapshot.created);
+			out.println("user " + snapshot.user);
+			writeEntry(out, DATA, snapshot.data);
+			if(snapshot.journal != null){
+				writeEntry(out, JOURNAL, snapshot.journal);
+			}
+		} finally{
+			out.close();
+		}
+		if(out.checkError()){
+			throw new IOException("Unable to write backup " + snapshot.name);
+		}
+		Files.move(temp.toPath(), new File(snapshots, snapshot.name).toPath(), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeEntry(PrintWriter out, String role, FileEntry entry){
+		out.println("file " + role + " " + entry.length + " " + entry.modified + " " + entry.chunks.length);
+		for(int i = 0; i<entry.chunks.length; i++){
+			out.println(entry.chunks[i] + " " + entry.sizes[i]);
+		}
+	}
+
+	private Snapshot readManifest(File file) throws IOException{
+		if(!file.isFile()){
+			throw new IOException("No backup named " + file.getName());
+		}
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+		try{
+			if(!HEADER.equals(in.readLine())){
+				throw new IOException("Not a backup: " + file.getName());
+			}
+			Snapshot snapshot = new Snapshot();
+			snapshot.name = file.getName();
+			snapshot.created = Long.parseLong(in.readLine().substring(8));
+			snapshot.user = in.readLine().substring(5);
+			String line;
+			while((line = in.readLine()) != null){
+				String[] parts = line.split(" ");
+				FileEntry entry = new FileEntry();
+				entry.length = Long.parseLong(parts[2]);
+				entry.modified = Long.parseLong(parts[3]);
+				entry.chunks = new String[Integer.parseInt(parts[4])];
+				entry.sizes = new int[entry.chunks.length];
+				for(int i = 0; i<entry.chunks.length; i++){
+					String[] chunk = in.readLine().split(" ");
+					entry.chunks[i] = chunk[0];
+					entry.sizes[i] = Integer.parseInt(chunk[1]);
+				}
+				if(parts[1].equals(DATA)){
+					snapshot.data = entry;
+				} else{
+					snapshot.journal = entry;
+				}
+			}
+			if(snapshot.data == null){
+				throw new IOException("Backup " + file.getName() + " has no data.xls");
+			}
+			return snapshot;
+		} catch(RuntimeException e){
+			throw new IOException("Damaged backup " + file.getName() + " (" + e + ")");
+		} finally{
+			in.close();
+		}
+	}
+
+	private static String hash(byte[] bytes, int start, int length){
+		MessageDigest digest;
+		try{
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(e); //Every JVM has SHA-256
+		}
+		digest.update(ByteBuffer.wrap(bytes, start, length));
+		StringBuilder hex = new StringBuilder(64);
+		for(byte b : digest.digest()){
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Random value for each byte, from a fixed seed so chunk boundaries are the same on every run.
+	 */
+	private static long[] gear(){
+		Random random = new Random(0x46434B50); //"FCKP"
+		long[] gear = new long[256];
+		for(int i = 0; i<gear.length; i++){
+			gear[i] = random.nextLong();
+		}
+		return gear;
+	}
+
+	/**
+	 * A backup: when and by whom it was made, and the chunks of data.xls and of its journal (null if none).
+	 */
+	protected static class Snapshot {
+		protected String name;
+		protected long created;
+		protected String user;
+		protected FileEntry data;
+		protected FileEntry journal;
+
+		protected long length(){
+			return data.length + (journal == null ? 0 : journal.length);
+		}
+
+		private void addChunks(HashSet<String> used){
+			used.addAll(Arrays.asList(data.chunks));
+			if(journal != null){
+				used.addAll(Arrays.asList(journal.chunks));
+			}
+		}
+	}
+
+	/**
+	 * A backed up file: its length, modification time and chunks in order.
+	 */
+	private static class FileEntry {
+		private long length;
+		private long modified;
+		private String[] chunks;
+		private int[] sizes;
+	}
+}
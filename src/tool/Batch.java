@@ -0,0 +1,235 @@
+package tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line entry point that runs the tool without the GUI (i.e., on a server, or from a scheduler).
+ * No AWT or Swing class is initialized: the user name comes from the arguments, missing resources are
+ * reported instead of asked for, and saved files are not opened.
+ * Several runs can share data.xls (see DataLock): commands that change it hold an exclusive lock for the
+ * whole run, as do the GUI's jobs that change it, so they run one after another. Commands that only read it
+ * (uncategorized, most-frequent, backup, backups) hold a shared lock and can run side by side.
+ * A GUI session keeps the data it loaded at its start, so it does not see what a batch run changed in
+ * data.xls until it is started again.
+ * @dateEdited 10-18-2026
+ */
+public class Batch {
+	protected static final int OK = 0;
+	protected static final int FAILED = 1; //A command failed or reported errors
+	protected static final int USAGE = 2;
+	protected static final int NO_RESOURCES = 3; //data.xls, log.txt or info.txt could not be loaded
+
+	private static final String USAGE_TEXT = "Usage: java -cp <classpath> tool.Batch [options] <command> [files...]\n"
+			+ "Commands:\n"
+			+ "  import <file>...       import categorized items into data.xls\n"
+			+ "  categorize <file>...   categorize purchase files (saved next to each file)\n"
+			+ "  categorize-all <file|directory>...\n"
+			+ "                         categorize purchase files at the same time, saving data.xls once\n"
+			+ "  clean                  write the current data as a new sheet of data.xls\n"
+			+ "  uncategorized          write uncategorized.xls\n"
+			+ "  most-frequent          write mostFrequentItems.xls\n"
+			+ "  backup                 back up data.xls\n"
+			+ "  backups                list the backups of data.xls\n"
+			+ "  restore <backup>       put data.xls back as it was in a backup\n"
+			+ "Options:\n"
+			+ "  -user <name>           name used in the log (default: the system user)\n"
+			+ "  -data <file>           data.xls to use\n"
+			+ "  -log <file>            log.txt to use\n"
+			+ "  -settings <file>       settings.txt to use\n"
+			+ "  -approximate on|off    match purchases by approximate name when there is no exact match (default: off)\n"
+			+ "  -profile <name>        column profile of settings.txt for the purchase files (default: the settings.txt\n"
+			+ "                         columns, or the header's if they do not fit)\n"
+			+ "Exit codes: 0 done, 1 failed or had errors, 2 bad arguments, 3 resources could not be loaded";
+
+	private User user;
+	private String command;
+	private List<String> arguments; //files to import or categorize, or the backup to restore
+
+	Batch(User user, String command, List<String> arguments){
+		this.user = user;
+		this.command = command;
+		this.arguments = arguments;
+	}
+
+	public static void main(String[] args){
+		System.setProperty("java.awt.headless", "true");
+		System.exit(run(args));
+	}
+
+	/**
+	 * Parse the arguments, load the resources and run the command.
+	 * @param args command line arguments
+	 * @return exit code
+	 */
+	protected static int run(String[] args){
+		String userName = System.getProperty("user.name");
+		String profile = null;
+		ArrayList<String[]> paths = new ArrayList<String[]>();
+		int i = 0;
+		while(i < args.length && args[i].startsWith("-")){
+			if(i + 1 == args.length){
+				return usage("Missing value for " + args[i]);
+			}
+			String option = args[i].substring(1);
+			if(option.equals("user")){
+				userName = args[i + 1];
+			} else if(option.equals("approximate") && (args[i + 1].equals("on") || args[i + 1].equals("off"))){
+				ExcelWriter.APPROXIMATE_MATCHING = args[i + 1].equals("on");
+			} else if(option.equals("profile")){
+				profile = args[i + 1];
+			} else if(option.equals("data") || option.equals("log") || option.equals("settings")){
+				paths.add(new String[]{option, args[i + 1]});
+			} else{
+				return usage("Unknown option " + args[i]);
+			}
+			i += 2;
+		}
+		if(i == args.length){
+			return usage(null);
+		}
+		String command = args[i];
+		List<String> arguments = Arrays.asList(args).subList(i + 1, args.length);
+		boolean needsFiles = command.equals("import") || command.equals("categorize") || command.equals("categorize-all");
+		if(command.equals("restore")){
+			if(arguments.size() != 1){
+				return usage("restore needs the name of one backup");
+			}
+		} else if(!needsFiles && !Arrays.asList("clean", "uncategorized", "most-frequent", "backup", "backups")
+				.contains(command)){
+			return usage("Unknown command " + command);
+		} else if(needsFiles == arguments.isEmpty()){
+			return usage(needsFiles ? command + " needs at least one file" : command + " takes no arguments");
+		}
+		for(String path : needsFiles ? arguments : new ArrayList<String>()){
+			if(!new File(path).isFile() && !(command.equals("categorize-all") && new File(path).isDirectory())){
+				System.err.println("File not found: " + path);
+				return USAGE;
+			}
+		}
+
+		User user = new User(userName);
+		for(String[] path : paths){
+			user.utils.setFilePath(path[0], path[1]);
+		}
+		if(!user.utils.checkResources()){
+			return NO_RESOURCES;
+		}
+		for(String[] path : paths){
+			user.utils.setFilePath(path[0], path[1]); //Over the files: section of settings.txt
+		}
+		if(profile != null && !user.utils.setPurchaseProfile(profile)){
+			System.err.println("Unknown column profile " + profile + ". Profiles: " + user.utils.profileNames());
+			user.utils.close();
+			return USAGE;
+		}
+		try{
+			return new Batch(user, command, arguments).run();
+		} finally{
+			user.utils.close();
+		}
+	}
+
+	/**
+	 * Load data.xls and run the command under the data.xls lock.
+	 * @return exit code
+	 */
+	protected int run(){
+		boolean changesData = !Arrays.asList("uncategorized", "most-frequent", "backup", "backups").contains(command);
+		DataLock lock;
+		try{
+			lock = DataLock.acquire(user, changesData);
+		} catch(IOException e){
+			System.err.println("Unable to lock data.xls: " + e.getMessage());
+			return FAILED;
+		}
+		try{
+			try{
+				if(!command.startsWith("backup")){ //Backups copy the files as they are on disk
+					user.resources = new ExcelReader(user);
+				}
+			} catch(IllegalArgumentException e){
+				System.err.println("Unable to load data.xls: " + e.getMessage());
+				return NO_RESOURCES;
+			}
+			user.log.newEntry(user.user, " logged in (batch " + command + ").");
+			boolean done = runCommand();
+			return done && user.utils.errorCount() == 0 ? OK : FAILED;
+		} finally{
+			lock.release();
+		}
+	}
+
+	/**
+	 * @return false if a file could not be imported or categorized, or data.xls could not be backed up or restored
+	 */
+	private boolean runCommand(){
+		ExcelReader resources = user.resources;
+		if(command.equals("clean")){
+			resources.cleanData(null);
+			user.log.newEntry(user.user, " cleaned data.xls");
+		} else if(command.equals("uncategorized")){
+			resources.uncategorizedItems();
+		} else if(command.equals("most-frequent")){
+			resources.mostFrequentItems();
+		} else if(command.equals("backup")){
+			return ExcelWriter.backupData(user);
+		} else if(command.equals("backups")){
+			user.out(ExcelWriter.listBackups(user));
+		} else if(command.equals("restore")){
+			return ExcelWriter.restoreData(user, arguments.get(0));
+		} else if(command.equals("categorize-all")){
+			ArrayList<File> paths = new ArrayList<File>();
+			for(String path : arguments){
+				paths.add(new File(path));
+			}
+			try{
+				List<File> files = CategorizeQueue.purchaseFiles(paths);
+				if(files.isEmpty()){
+					user.out("No purchase files to categorize.");
+					return false;
+				}
+				for(CategorizeQueue.Result result : new CategorizeQueue(resources).run(files)){
+					if(result.failure != null){
+						return false;
+					}
+				}
+			} catch(Exception e){
+				user.utils.exceptionHandler(e, "Failed to categorize the files");
+				return false;
+			}
+		} else{
+			boolean done = true;
+			for(String path : arguments){
+				File file = new File(path);
+				user.out((command.equals("import") ? "Importing " : "Categorizing ") + file.getPath());
+				try{
+					if(command.equals("import")){
+						resources.importNewDataExcel(file);
+					} else{
+						resources.runNewCategorization(file);
+					}
+				} catch(IllegalArgumentException e){
+					user.utils.exceptionHandler(e, "Footprint already completed for " + file.getName());
+					done = false;
+				} catch(Exception e){
+					user.utils.exceptionHandler(e, "Failed to " + command + " " + file.getName());
+					done = false;
+				}
+			}
+			return done;
+		}
+		return true;
+	}
+
+	private static int usage(String error){
+		if(error != null){
+			System.err.println(error);
+		}
+		System.err.println(USAGE_TEXT);
+		return USAGE;
+	}
+}
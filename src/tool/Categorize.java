@@ -2,33 +2,85 @@ package tool;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 
 /**
  * Main Method for all of these calculations. 
  * Called from the GUI After user decides which file to use.
+ * Purchase sheets with more than PARALLEL_ROWS rows are totaled on a fork-join pool.
+ * Groups are still written to the ExcelWriter in sheet order, so both modes produce the same file.
+ * The purchase sheet is read once into a PurchaseTable; the groups are found and totaled from its columns.
+ * Which columns those are is decided per file (see Utilities.purchaseColumns), so files with different layouts
+ * can be categorized in the same session.
+ * By default only adjacent rows are grouped, so the purchase file must be sorted by item. The HASH and SORT
+ * aggregations group rows wherever they are in the file (see categorizeUnsorted).
  */
 public class Categorize {
+
+	protected static int PARALLEL_ROWS = 20000; //Larger sheets are categorized in parallel.
+	protected static int STREAM_ROWS = 50000; //Larger sheets are written to a streamed .xlsx file.
+	private static final int GROUP_BATCH = 8192; //Item groups totaled per parallel batch
+	private static final int GROUPS_PER_TASK = 256;
+
+	protected static final int ADJACENT = 0; //Rows of an item must be next to each other
+	protected static final int HASH = 1; //Rows are grouped with a hash table
+	protected static final int SORT = 2; //Rows are grouped by sorting them
+	protected static int AGGREGATION = ADJACENT;
 	
 	protected static void runNewCategorization(File file, ExcelReader reader) throws IOException{
+		runNewCategorization(file, reader, null);
+	}
+	
+	/**
+	 * Categorize a purchase file and save the calculated sheet.
+	 * @param file purchase file
+	 * @param reader reader with currentData, which is only read
+	 * @param dataChanges journal to record the data.xls changes in, for the caller to save (see CategorizeQueue),
+	 * or null to save them with the file
+	 * @return number of purchase rows read
+	 * @throws IOException
+	 * @dateEdited 10-18-2026
+	 */
+	protected static int runNewCategorization(File file, ExcelReader reader, DataJournal dataChanges) throws IOException{
 		/*
 		 * Get the first row to categorize.
 		 */
 		HSSFSheet dataSheet =reader.loadBook(file).getSheetAt(0);
-		ExcelWriter writer = new ExcelWriter(reader.user, file, ExcelWriter.FOOD_CATEGORIZATION);
-		
-		int currentRow = dataSheet.getFirstRowNum();
+		int setting = ExcelWriter.FOOD_CATEGORIZATION;
+		if(dataSheet.getLastRowNum() - dataSheet.getFirstRowNum() > STREAM_ROWS){
+			setting = ExcelWriter.STREAMED_CATEGORIZATION;
+		}
+		ColumnSchema columns = reader.user.utils.purchaseColumns(dataSheet, file.getName());
+		ExcelWriter writer = new ExcelWriter(reader.user, file, setting, columns, dataChanges);
 		
 		long time = System.currentTimeMillis();
+		PurchaseTable table = new PurchaseTable(dataSheet, columns);
+		dataSheet = null; //Only the table is used from here on
+		
+		int currentRow = table.firstRow();
+		int rows = table.lastRow() - currentRow + 1;
 
-		while(currentRow <= dataSheet.getLastRowNum()){
-			int updatedRows = categorizeItem(currentRow, dataSheet, reader, writer);
-			currentRow = updatedRows +1;
+		try{
+			if(AGGREGATION != ADJACENT){
+				categorizeUnsorted(table, reader, writer);
+			} else if(table.lastRow() - currentRow > PARALLEL_ROWS){
+				categorizeParallel(currentRow, table, reader, writer);
+			} else{
+				while(currentRow <= table.lastRow()){
+					JobExecutor.checkCancelled();
+					int updatedRows = categorizeItem(currentRow, table, reader, writer);
+					currentRow = updatedRows +1;
+					JobExecutor.progress(currentRow, table.lastRow()+1);
+				}
+			}
+		} catch(CancellationException e){
+			writer.discard(); //Nothing has been saved yet
+			throw e;
 		}
 		
 		reader.user.log.newEntry(reader.user.user, " ran new Calculation on " + file.getName() + ".");
@@ -36,63 +88,191 @@ public class Categorize {
 		writer.save();
 	    time = (System.currentTimeMillis()- time)/1000;
 	    reader.user.out("Transaction took " + time +" seconds.");
+	    return rows;
 	}
 
 	/**
 	 * Categorize a Single Food Item.
 	 */
-	private static int categorizeItem(int currentRow, HSSFSheet sheet, ExcelReader reader, ExcelWriter writer){
-		HSSFRow row = sheet.getRow(currentRow);
-		
-		String itemName = getCell(row.getCell(ExcelReader.ITEM_NAME));
-		String rcvUnit = getCell(row.getCell(ExcelReader.RCV_UNIT));
+	protected static int categorizeItem(int currentRow, PurchaseTable table, ExcelReader reader, ExcelWriter writer){
+		ItemGroup group = new ItemGroup(currentRow, groupEnd(currentRow, table));
+		totalGroup(group, table, reader);
+		writeGroup(group, reader, writer);
+		return group.lastRow;
+	}
 
-		HashMap<String, CostsAndQuantities> vendors = new HashMap<String,CostsAndQuantities>();
-		
-		while (currentRow < sheet.getLastRowNum() && getCell(sheet.getRow(currentRow + 1).getCell(0)).equals(itemName) && getCell(sheet.getRow(currentRow + 1).getCell(1)).equals(rcvUnit)){
-			row = sheet.getRow(currentRow);//Get the current row
-			totalItem(vendors,row);
-			currentRow++;//the current row changes
+	/**
+	 * Categorize a purchase file that does not have to be sorted by item.
+	 * Rows are totaled by item name, receive unit and vendor in one pass, with a hash table (HASH) or by sorting
+	 * the rows (SORT). Both write the same items in the same order: by item name, receive unit and vendor,
+	 * each in order of first appearance. Rows that can not be read are reported and left out.
+	 */
+	protected static void categorizeUnsorted(PurchaseTable table, ExcelReader reader, ExcelWriter writer){
+		for(int row = table.firstRow(); row<=table.lastRow(); row++){
+			if(!table.isReadable(row)){
+				reader.user.out("Error understanding value on row " + row);
+			}
+		}
+		PurchaseTotals totals = AGGREGATION == SORT ? PurchaseTotals.sorted(table) : PurchaseTotals.hashed(table);
+		int[] groups = totals.byKey();
+		for(int i = 0; i<groups.length; i++){
+			if(i % GROUP_BATCH == 0){
+				JobExecutor.checkCancelled();
+				JobExecutor.progress(i, groups.length);
+			}
+			int group = groups[i];
+			FoodItem item = new FoodItem(table.symbol(totals.name(group)), table.symbol(totals.rcvUnit(group)),
+					table.symbol(totals.vendor(group)), totals.cost(group), totals.quantity(group));
+			writer.writeToExcel(item, reader.getItem(item.key()));
 		}
+	}
+
+	/**
+	 * Categorize the sheet on the common fork-join pool.
+	 * The item groups are found in one pass, then totaled and looked up in parallel batches.
+	 * Each batch is written in order before the next one starts.
+	 */
+	protected static void categorizeParallel(int currentRow, PurchaseTable table, ExcelReader reader, ExcelWriter writer){
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		reader.user.out("Categorizing in parallel on " + pool.getParallelism() + " threads...");
+		ArrayList<ItemGroup> batch = new ArrayList<ItemGroup>(GROUP_BATCH);
+		while(currentRow <= table.lastRow()){
+			ItemGroup group = new ItemGroup(currentRow, groupEnd(currentRow, table));
+			batch.add(group);
+			currentRow = group.lastRow +1;
+			if(batch.size() == GROUP_BATCH || currentRow > table.lastRow()){
+				JobExecutor.checkCancelled();
+				pool.invoke(new TotalGroups(batch, 0, batch.size(), table, reader));
+				for(ItemGroup current : batch){
+					writeGroup(current, reader, writer);
+				}
+				batch.clear();
+				JobExecutor.progress(currentRow, table.lastRow()+1);
+			}
+		}
+	}
+
+	/**
+	 * Find the last row of the item group that starts at currentRow.
+	 * Adjacent rows with the same item name and receive unit are one group.
+	 */
+	private static int groupEnd(int currentRow, PurchaseTable table){
+		int itemName = table.name(currentRow);
+		int rcvUnit = table.rcvUnit(currentRow);
+		while (currentRow < table.lastRow() && table.name(currentRow + 1) == itemName && table.rcvUnit(currentRow + 1) == rcvUnit){
+			currentRow++;
+		}
+		return currentRow;
+	}
 		
+	/**
+	 * Total the costs and quantities of a group by vendor and look up each resulting item in currentData.
+	 * Only reads the sheet and currentData, so groups can be totaled on any thread.
+	 */
+	private static void totalGroup(ItemGroup group, PurchaseTable table, ExcelReader reader){
 		try{
-			row = sheet.getRow(currentRow);
-			totalItem(vendors,row);
-		} catch (IllegalStateException e){
-			reader.user.out("Error understanding value on row " + currentRow);
-		}
+			String itemName = table.symbol(table.name(group.firstRow));
+			String rcvUnit = table.symbol(table.rcvUnit(group.firstRow));
+
+			PurchaseTotals vendors = new PurchaseTotals(4);
 		
-		if(vendors.size()>0){
-			Set<String> allVendors = vendors.keySet();
-			for(String vendor : allVendors){
-				FoodItem item = new FoodItem(itemName, rcvUnit, vendor, vendors.get(vendor).getCost(), vendors.get(vendor).getQty());
-				writer.writeToExcel(item);
+			int currentRow = group.firstRow;
+			while (currentRow < group.lastRow){
+				totalItem(vendors, table, currentRow);
+				currentRow++;//the current row changes
 			}
-		} else{
+		
 			try{
-				CostsAndQuantities costAndQty = new CostsAndQuantities(row.getCell(ExcelReader.PRICE).getNumericCellValue(),row.getCell(ExcelReader.QUANTITY).getNumericCellValue());
-				FoodItem item = new FoodItem(itemName, rcvUnit, getCell(row.getCell(ExcelReader.VENDOR)), costAndQty.getCost(), costAndQty.getQty());
-				writer.writeToExcel(item);
-			} catch(IllegalStateException e){
-				reader.user.out("Error understanding value on row " + currentRow);
+				totalItem(vendors, table, currentRow);
+			} catch (IllegalStateException e){
+				group.messages.add("Error understanding value on row " + currentRow);
+			}
+		
+			if(vendors.size() == 0){
+				try{
+					totalItem(vendors, table, currentRow);
+				} catch(IllegalStateException e){
+					group.messages.add("Error understanding value on row " + currentRow);
+				}
 			}
+			for(int vendor : vendors.byKey()){
+				group.add(new FoodItem(itemName, rcvUnit, table.symbol(vendors.vendor(vendor)), vendors.cost(vendor), vendors.quantity(vendor)), reader);
+			}
+		} catch(RuntimeException e){
+			group.failure = e;
 		}
-		return currentRow;
 	}
 
-	private static void totalItem(HashMap<String, CostsAndQuantities> vendors, HSSFRow row) {
-		String vendor = getCell(row.getCell(ExcelReader.VENDOR));
-		double qty = row.getCell(ExcelReader.QUANTITY).getNumericCellValue();
-		double price = row.getCell(ExcelReader.PRICE).getNumericCellValue();
-		if(vendors.containsKey(vendor)){
-			CostsAndQuantities costs = vendors.get(vendor);
-			costs.addCost(price, qty);
-		} else{
-			vendors.put(vendor, new CostsAndQuantities(price, qty));
+	/**
+	 * Write a totaled group. Must be called in sheet order from a single thread.
+	 */
+	private static void writeGroup(ItemGroup group, ExcelReader reader, ExcelWriter writer){
+		if(group.failure != null){
+			throw group.failure;
 		}
+		for(String message : group.messages){
+			reader.user.out(message);
+		}
+		for(int i = 0; i<group.items.size(); i++){
+			writer.writeToExcel(group.items.get(i), group.matches.get(i));
+		}
+	}
+
+	private static void totalItem(PurchaseTotals vendors, PurchaseTable table, int row) {
+		vendors.add(PurchaseTotals.key(table.name(row), table.rcvUnit(row), table.vendor(row)), table.price(row), table.quantity(row));
 	}
 
-	private static String getCell(HSSFCell cell){
-		return cell.getStringCellValue().trim().toLowerCase();
+	/**
+	 * Rows of one food item (same name and receive unit) and the items totaled from them.
+	 */
+	private static class ItemGroup {
+		private int firstRow;
+		private int lastRow;
+		private ArrayList<FoodItem> items = new ArrayList<FoodItem>(1);
+		private ArrayList<FoodItem> matches = new ArrayList<FoodItem>(1); //currentData entry for each item (or null)
+		private ArrayList<String> messages = new ArrayList<String>(0);
+		private RuntimeException failure;
+
+		private ItemGroup(int firstRow, int lastRow){
+			this.firstRow = firstRow;
+			this.lastRow = lastRow;
+		}
+
+		private void add(FoodItem item, ExcelReader reader){
+			items.add(item);
+			matches.add(reader.getItem(item.key()));
+		}
+	}
+
+	/**
+	 * Fork-join task that totals a range of item groups.
+	 */
+	@SuppressWarnings("serial")
+	private static class TotalGroups extends RecursiveAction {
+		private ArrayList<ItemGroup> groups;
+		private int start;
+		private int end;
+		private PurchaseTable table;
+		private ExcelReader reader;
+
+		private TotalGroups(ArrayList<ItemGroup> groups, int start, int end, PurchaseTable table, ExcelReader reader){
+			this.groups = groups;
+			this.start = start;
+			this.end = end;
+			this.table = table;
+			this.reader = reader;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - start <= GROUPS_PER_TASK){
+				for(int i = start; i<end; i++){
+					totalGroup(groups.get(i), table, reader);
+				}
+			} else{
+				int middle = (start + end) >>> 1;
+				invokeAll(new TotalGroups(groups, start, middle, table, reader), new TotalGroups(groups, middle, end, table, reader));
+			}
+		}
 	}
 }
@@ -0,0 +1,227 @@
+package tool;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Categorizes several purchase files at the same time (i.e., one export per dining location) on a pool of
+ * at most THREADS threads.
+ * Every file is looked up in the same currentData, which is only read while the queue runs. Each file records
+ * its data.xls changes (historical flags and the fiscal year column) in its own batch; the batches of the files
+ * that were categorized are added to one journal in file order and saved in one write once every file is
+ * done, instead of once per file.
+ * A file that fails is reported and does not stop the others. If the queue is cancelled, data.xls is not changed.
+ * @dateEdited 10-18-2026
+ */
+class CategorizeQueue {
+	protected static int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	private static final long WAIT_MILLIS = 200; //How often the waiting thread checks for cancellation
+
+	private ExcelReader reader;
+	private User user;
+
+	CategorizeQueue(ExcelReader reader){
+		this.reader = reader;
+		this.user = reader.user;
+	}
+
+	/**
+	 * The purchase files of a list of files and directories. A directory gives its .xls files, by name, except
+	 * for data.xls and the files the program writes (uncategorized.xls, mostFrequentItems.xls).
+	 * @param paths files and directories
+	 * @return purchase files
+	 * @throws IllegalArgumentException if a path does not exist
+	 */
+	protected static List<File> purchaseFiles(List<File> paths){
+		ArrayList<File> files = new ArrayList<File>();
+		for(File path : paths){
+			if(path.isDirectory()){
+				File[] found = path.listFiles(new FileFilter(){
+					@Override
+					public boolean accept(File file){
+						String name = file.getName().toLowerCase();
+						return file.isFile() && name.endsWith(".xls") && !name.startsWith(".") && !name.equals("data.xls")
+								&& !name.equals("uncategorized.xls") && !name.equals("mostfrequentitems.xls");
+					}
+				});
+				Arrays.sort(found);
+				files.addAll(Arrays.asList(found));
+			} else if(path.isFile()){
+				files.add(path);
+			} else{
+				throw new IllegalArgumentException("File not found: " + path.getPath());
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Categorize the files, save the data.xls changes and report the time taken by each file.
+	 * @param files purchase files
+	 * @return the result of each file, in the order given
+	 * @throws IOException if the data.xls changes could not be saved
+	 * @throws CancellationException if the job running the queue was cancelled
+	 */
+	protected List<Result> run(List<File> files) throws IOException{
+		final DataJournal changes = new DataJournal(user.utils.getFile("data"));
+		final JobExecutor.Job job = JobExecutor.current();
+		final AtomicInteger threads = new AtomicInteger();
+		int size = Math.max(1, Math.min(THREADS, files.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(size, new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable runnable){
+				return new Thread(runnable, "categorize-" + threads.incrementAndGet());
+			}
+		});
+		user.out("Categorizing " + files.size() + " files on " + size + " threads...");
+		long time = System.currentTimeMillis();
+		ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>(files.size());
+		for(final File file : files){
+			futures.add(pool.submit(new Callable<Result>(){
+				@Override
+				public Result call(){
+					JobExecutor.help(job);
+					try{
+						return categorize(file, changes.batch());
+					} finally{
+						JobExecutor.help(null);
+					}
+				}
+			}));
+		}
+		pool.shutdown();
+		ArrayList<Result> results = new ArrayList<Result>(files.size());
+		try{
+			for(Future<Result> future : futures){
+				Result result = await(future);
+				if(result.failure == null){
+					changes.add(result.changes);
+				}
+				result.changes = null;
+				results.add(result);
+				JobExecutor.progress(results.size(), files.size());
+			}
+		} catch(CancellationException e){
+			pool.shutdownNow();
+			user.out("Categorization cancelled: data.xls was not changed.");
+			throw e;
+		}
+		time = System.currentTimeMillis() - time;
+
+		int done = 0;
+		for(Result result : results){
+			if(result.failure == null){
+				done++;
+			}
+		}
+		if(done > 0){
+			ExcelWriter.saveData(user, changes);
+		}
+		user.log.newEntry(user.user, " ran new Calculation on " + done + " of " + files.size() + " files at once.");
+		user.out(report(results, time));
+		return results;
+	}
+
+	/**
+	 * Categorize one file on a pool thread.
+	 */
+	private Result categorize(File file, DataJournal changes){
+		Result result = new Result(file);
+		result.changes = changes;
+		long start = System.nanoTime();
+		try{
+			result.rows = Categorize.runNewCategorization(file, reader, changes);
+		} catch(CancellationException e){
+			throw e;
+		} catch(IllegalArgumentException e){
+			result.failure = e;
+			user.utils.exceptionHandler(e, "Footprint already completed for " + file.getName());
+		} catch(Exception e){
+			result.failure = e;
+			user.utils.exceptionHandler(e, "Failed to categorize " + file.getName());
+		}
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	/**
+	 * Wait for a file, checking for the cancellation of the job that runs the queue.
+	 */
+	private static Result await(Future<Result> future){
+		while(true){
+			JobExecutor.checkCancelled();
+			try{
+				return future.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+			} catch(TimeoutException e){
+				//Still running
+			} catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Interrupted while categorizing.");
+			} catch(ExecutionException e){
+				if(e.getCause() instanceof CancellationException){
+					throw (CancellationException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * @return the rows, time and rows per second of each file, and the totals
+	 */
+	private static String report(List<Result> results, long millis){
+		StringBuilder report = new StringBuilder("Categorized files:");
+		long rows = 0;
+		for(Result result : results){
+			report.append("\n\t" + result);
+			if(result.failure == null){
+				rows += result.rows;
+			}
+		}
+		report.append("\nTotal: " + rows + " rows in " + String.format("%.1f", millis/1000.0) + " s ("
+				+ perSecond(rows, millis*1000000L) + " rows/s)");
+		return report.toString();
+	}
+
+	private static long perSecond(long rows, long nanos){
+		return nanos == 0 ? rows : Math.round(rows*1e9/nanos);
+	}
+
+	/**
+	 * Outcome of one file.
+	 */
+	protected static class Result {
+		protected final File file;
+		protected int rows; //purchase rows read
+		protected long nanos; //time taken
+		protected Exception failure; //null if the file was categorized
+		private DataJournal changes; //data.xls changes of the file, until they are added to the queue's journal
+
+		private Result(File file){
+			this.file = file;
+		}
+
+		@Override
+		public String toString(){
+			if(failure != null){
+				return file.getName() + ": failed (" + failure + ")";
+			}
+			return file.getName() + ": " + rows + " rows in " + String.format("%.1f", nanos/1e9) + " s ("
+					+ perSecond(rows, nanos) + " rows/s)";
+		}
+	}
+}
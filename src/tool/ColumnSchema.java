@@ -0,0 +1,206 @@
+package tool;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+
+/**
+ * Column layout of a purchase file, of data.xls and of the calculated sheet.
+ * Schemas are immutable, so each file being read or written can have its own: data.xls is read with the
+ * layout from settings.txt, and a purchase file with a named profile, or with the settings.txt layout unless
+ * its header row shows that layout does not fit and names each purchase column.
+ * The keys are the names used in settings.txt (i.e., "ITEM_NAME: 0").
+ * @dateEdited 10-18-2026
+ */
+class ColumnSchema {
+	protected static final String[] KEYS = {"ITEM_NAME", "RCV_UNIT", "VENDOR", "QUANTITY", "PRICE", "READ_FAO",
+			"READ_WEIGHT_PER_UNIT", "READ_WEIGHT_UNIT", "WRITE_FAO", "WRITE_WEIGHT_PER_UNIT", "WRITE_WEIGHT_UNIT", "COST"};
+	protected static final ColumnSchema DEFAULT = new ColumnSchema("default", new int[]{0, 1, 2, 3, 4, 3, 7, 8, 4, 8, 9, 10});
+	protected static final int FAO_COLUMNS = 4;
+
+	//Whole header names of the purchase columns, after normalize() (i.e., "Item #" and "Vendor Item Number" are not names)
+	private static final String[][] HEADER_NAMES = {
+		{"item", "item name", "name", "description", "item description", "product", "product name"},
+		{"rcv", "rcv unit", "receive unit", "received unit", "unit", "uom", "unit of measure", "pack", "pack size"},
+		{"vendor", "vendor name", "supplier", "supplier name", "distributor"},
+		{"qty", "quantity", "qty received", "quantity received"},
+		{"price", "unit price", "cost", "unit cost"}};
+	private static final int[] HEADER_KEYS = {0, 1, 2, 3, 4}; //Index in KEYS of each list of HEADER_NAMES
+
+	protected final String name;
+	protected final int itemName;
+	protected final int rcvUnit;
+	protected final int vendor;
+	protected final int quantity;
+	protected final int price;
+	protected final int readFao; //First of the FAO_COLUMNS categories in data.xls
+	protected final int readWeightPerUnit;
+	protected final int readWeightUnit; //Fiscal year columns of data.xls follow this one
+	protected final int writeFao; //First of the FAO_COLUMNS categories in the calculated sheet
+	protected final int writeWeightPerUnit;
+	protected final int writeWeightUnit;
+	protected final int cost;
+	private final int[] columns; //by KEYS
+
+	private ColumnSchema(String name, int[] columns){
+		for(int i = 0; i<KEYS.length; i++){
+			if(columns[i] < 0){
+				throw new IllegalArgumentException("Column " + KEYS[i] + " of " + name + " is negative.");
+			}
+		}
+		this.name = name;
+		this.columns = columns.clone();
+		itemName = columns[0];
+		rcvUnit = columns[1];
+		vendor = columns[2];
+		quantity = columns[3];
+		price = columns[4];
+		readFao = columns[5];
+		readWeightPerUnit = columns[6];
+		readWeightUnit = columns[7];
+		writeFao = columns[8];
+		writeWeightPerUnit = columns[9];
+		writeWeightUnit = columns[10];
+		cost = columns[11];
+	}
+
+	/**
+	 * Make a schema that has this one's columns, except for the ones given.
+	 * @param name name of the new schema (i.e., the name of its profile)
+	 * @param changes column of each key to change
+	 * @return the new schema
+	 * @throws IllegalArgumentException for a key that is not in KEYS, or a negative column
+	 */
+	protected ColumnSchema with(String name, Map<String, Integer> changes){
+		int[] changed = columns.clone();
+		for(Map.Entry<String, Integer> change : changes.entrySet()){
+			int key = Arrays.asList(KEYS).indexOf(change.getKey());
+			if(key < 0){
+				throw new IllegalArgumentException("Unknown column " + change.getKey() + " in " + name + ".");
+			}
+			changed[key] = change.getValue();
+		}
+		return new ColumnSchema(name, changed);
+	}
+
+	/**
+	 * Check this schema's purchase columns (item name, receive unit, vendor, quantity and price) against
+	 * the names in a header row, and find them from the names if they do not fit.
+	 * The layout fits unless the header names one of its purchase columns as another purchase column; a header
+	 * that names none of them (or has none) fits. The columns are only found from the header if it names each
+	 * of them by a whole name in exactly one column; the other columns are this schema's.
+	 * The calculated sheet keeps the purchase columns where they are, so if they overlap the calculated
+	 * columns (FAO categories, weights and cost), those are moved after them, in the same order.
+	 * @param header first row of a purchase sheet
+	 * @return this schema if it fits, else the schema found from the header, or null if it can not be found
+	 */
+	protected ColumnSchema detect(HSSFRow header){
+		if(header == null){
+			return this;
+		}
+		int[] fields = new int[Math.max(0, header.getLastCellNum())]; //field named by each column, -1 for none
+		int[] detected = columns.clone();
+		int[] found = new int[HEADER_NAMES.length]; //columns that name each field
+		boolean ambiguous = false;
+		for(int column = 0; column<fields.length; column++){
+			fields[column] = -1;
+			HSSFCell cell = header.getCell(column);
+			if(cell == null || cell.getCellType() != HSSFCell.CELL_TYPE_STRING){
+				continue;
+			}
+			String text = normalize(cell.getStringCellValue());
+			for(int field = 0; field<HEADER_NAMES.length; field++){
+				if(Arrays.asList(HEADER_NAMES[field]).contains(text)){
+					ambiguous |= fields[column] >= 0; //Names two fields
+					fields[column] = field;
+					found[field]++;
+					detected[HEADER_KEYS[field]] = column;
+				}
+			}
+		}
+		if(fits(fields)){
+			return this;
+		}
+		for(int count : found){
+			if(count != 1 || ambiguous){
+				return null;
+			}
+		}
+		ColumnSchema schema = new ColumnSchema("header of the file", detected);
+		if(!schema.hasDistinctOutput()){
+			int next = Math.max(Math.max(schema.itemName, schema.rcvUnit), Math.max(schema.vendor, schema.quantity)) + 1;
+			detected[8] = next; //WRITE_FAO
+			detected[9] = next + FAO_COLUMNS; //WRITE_WEIGHT_PER_UNIT
+			detected[10] = next + FAO_COLUMNS + 1; //WRITE_WEIGHT_UNIT
+			detected[11] = next + FAO_COLUMNS + 2; //COST
+			schema = new ColumnSchema("header of the file", detected);
+		}
+		return schema;
+	}
+
+	/**
+	 * @return the column after every column written to the calculated sheet, for notes on a row
+	 */
+	protected int noteColumn(){
+		int last = Math.max(Math.max(itemName, rcvUnit), Math.max(vendor, quantity));
+		last = Math.max(last, Math.max(cost, Math.max(writeWeightPerUnit, writeWeightUnit)));
+		return Math.max(last, writeFao + FAO_COLUMNS - 1) + 1;
+	}
+
+	/**
+	 * @return the columns in the order of KEYS (for comparing schemas)
+	 */
+	protected int[] columns(){
+		return columns.clone();
+	}
+
+	/**
+	 * @return true if no two columns written to the calculated sheet are the same
+	 */
+	private boolean hasDistinctOutput(){
+		HashSet<Integer> output = new HashSet<Integer>();
+		int[] written = {itemName, rcvUnit, vendor, quantity, cost, writeWeightPerUnit, writeWeightUnit};
+		for(int column : written){
+			if(!output.add(column)){
+				return false;
+			}
+		}
+		for(int i = 0; i<FAO_COLUMNS; i++){
+			if(!output.add(writeFao + i)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param fields field named by each header column (-1 for none)
+	 * @return true if no purchase column of this schema is named as another purchase column
+	 */
+	private boolean fits(int[] fields){
+		for(int field = 0; field<HEADER_NAMES.length; field++){
+			int column = columns[HEADER_KEYS[field]];
+			if(column < fields.length && fields[column] >= 0 && fields[column] != field){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return lower case header text with # as "number" and every run of other characters than letters and
+	 * digits as one space (i.e., "Item #" is "item number")
+	 */
+	private static String normalize(String text){
+		return text.toLowerCase().replace("#", " number ").replaceAll("[^a-z0-9]+", " ").trim();
+	}
+
+	@Override
+	public String toString(){
+		return name + " (item name " + itemName + ", receive unit " + rcvUnit + ", vendor " + vendor + ", quantity "
+				+ quantity + ", price " + price + ", calculated columns from " + writeFao + ")";
+	}
+}
@@ -0,0 +1,66 @@
+package tool;
+
+/**
+ * Ring buffer of the last lines written to the console.
+ * Once it is full, each new line replaces the oldest one, so the console history never grows past its capacity.
+ * Safe to use from several threads.
+ * @dateEdited 10-18-2026
+ */
+class ConsoleBuffer {
+	private String[] lines;
+	private int start; //index of the oldest line
+	private int size;
+
+	/**
+	 * @param capacity number of lines kept
+	 */
+	ConsoleBuffer(int capacity){
+		lines = new String[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Add text to the buffer. Text with line breaks is stored as several lines.
+	 * @param text text to add
+	 */
+	protected synchronized void append(String text){
+		int from = 0;
+		int end;
+		while((end = text.indexOf('\n', from)) >= 0){
+			add(text.substring(from, end));
+			from = end + 1;
+		}
+		add(text.substring(from));
+	}
+
+	/**
+	 * @return the lines in the buffer, oldest first, separated by line breaks
+	 */
+	protected synchronized String text(){
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i<size; i++){
+			if(i > 0){
+				text.append('\n');
+			}
+			text.append(lines[(start + i) % lines.length]);
+		}
+		return text.toString();
+	}
+
+	protected synchronized int size(){
+		return size;
+	}
+
+	protected int capacity(){
+		return lines.length;
+	}
+
+	private void add(String line){
+		if(size == lines.length){
+			lines[start] = line;
+			start = (start + 1) % lines.length;
+		} else{
+			lines[(start + size) % lines.length] = line;
+			size++;
+		}
+	}
+}
@@ -0,0 +1,367 @@
+package tool;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+
+/**
+ * Append only journal of the cell changes made to data.xls (historical flags, new fiscal year columns...).
+ * Stored next to data.xls as data.xls.journal, so routine runs append a few kilobytes instead of rewriting
+ * the whole workbook. The journal is replayed whenever data.xls is loaded and compacted (written into data.xls
+ * and deleted) on demand or once it is larger than COMPACT_SIZE.
+ * The journal belongs to the data.xls it was started on: if data.xls has been changed by anything else since
+ * (length or modification time), the journal is ignored.
+ * Each commit is one batch with its own CRC32, so a batch cut off by a crash is dropped on the next load.
+ * Commits hold a lock on the journal, so runs sharing data.xls append after each other's batches.
+ * @dateEdited 10-18-2026
+ */
+class DataJournal {
+	private static final int MAGIC = 0x46434A4E; //"FCJN"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 24; //magic, version, data length, data modified
+	private static final byte SET_CELL = 1;
+
+	protected static long COMPACT_SIZE = 1 << 20; //Journals larger than this are compacted after a commit
+
+	private File dataFile;
+	private File journalFile;
+	private ArrayList<CellChange> changes; //replayed changes, in order
+	private LinkedHashMap<String, CellChange> pending; //recorded changes that are not committed yet, by cell
+	private HashMap<String, HashMap<Integer, ArrayList<CellChange>>> rows; //sheet -> row -> changes (for streaming)
+
+	/**
+	 * Open the journal of data.xls and read every complete batch in it.
+	 * @param dataFile data.xls
+	 * @throws IOException if the journal exists but can not be read
+	 */
+	DataJournal(File dataFile) throws IOException{
+		this.dataFile = dataFile;
+		journalFile = journalFile(dataFile);
+		changes = new ArrayList<CellChange>();
+		pending = new LinkedHashMap<String, CellChange>();
+		if(isCurrent()){
+			read();
+		}
+	}
+
+	private DataJournal(DataJournal parent){
+		dataFile = parent.dataFile;
+		journalFile = parent.journalFile;
+		changes = new ArrayList<CellChange>();
+		pending = new LinkedHashMap<String, CellChange>();
+	}
+
+	/**
+	 * A journal that only keeps the changes recorded in it, for one categorization of several running at once
+	 * (see CategorizeQueue). It is not committed itself: once the categorization is done, its changes are
+	 * added to this journal with add().
+	 * @return empty batch
+	 */
+	protected DataJournal batch(){
+		return new DataJournal(this);
+	}
+
+	/**
+	 * Record the changes of a batch, in the order they were recorded in it.
+	 * @param batch batch made with batch()
+	 */
+	protected void add(DataJournal batch){
+		pending.putAll(batch.pending);
+		batch.pending.clear();
+	}
+
+	/**
+	 * @param dataFile data.xls
+	 * @return the journal file for data.xls
+	 */
+	protected static File journalFile(File dataFile){
+		return new File(dataFile.getPath() + ".journal");
+	}
+
+	/**
+	 * @return true if the journal exists and was started on the current data.xls
+	 */
+	protected boolean isCurrent() throws IOException{
+		if(!journalFile.exists() || journalFile.length() < HEADER_SIZE){
+			return false;
+		}
+		DataInputStream in = new DataInputStream(new FileInputStream(journalFile));
+		try{
+			return in.readInt() == MAGIC && in.readInt() == VERSION
+					&& in.readLong() == dataFile.length() && in.readLong() == dataFile.lastModified();
+		} finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * @return number of replayed changes
+	 */
+	protected int size(){
+		return changes.size();
+	}
+
+	/**
+	 * @return size of the journal file in bytes (0 if there is none)
+	 */
+	protected long length(){
+		return journalFile.exists() ? journalFile.length() : 0;
+	}
+
+	/**
+	 * Apply every replayed change to a loaded data.xls workbook.
+	 * @param book workbook loaded from data.xls
+	 */
+	protected void apply(HSSFWorkbook book){
+		for(CellChange change : changes){
+			HSSFSheet sheet = book.getSheet(change.sheet);
+			if(sheet != null){
+				HSSFRow row = sheet.getRow(change.row);
+				if(row == null){
+					row = sheet.createRow(change.row);
+				}
+				row.createCell(change.col).setCellValue(change.value);
+			}
+		}
+	}
+
+	/**
+	 * Apply the replayed changes of one streamed row (see DataStreamReader).
+	 * @param sheetName name of the sheet being streamed
+	 * @param rowNum row number
+	 * @param cells cell values of the row
+	 * @return the cell values with the changes applied (may be a new array)
+	 */
+	protected Object[] apply(String sheetName, int rowNum, Object[] cells){
+		if(changes.isEmpty()){
+			return cells;
+		}
+		if(rows == null){
+			rows = new HashMap<String, HashMap<Integer, ArrayList<CellChange>>>();
+			for(CellChange change : changes){
+				HashMap<Integer, ArrayList<CellChange>> sheet = rows.get(change.sheet);
+				if(sheet == null){
+					sheet = new HashMap<Integer, ArrayList<CellChange>>();
+					rows.put(change.sheet, sheet);
+				}
+				ArrayList<CellChange> row = sheet.get(change.row);
+				if(row == null){
+					row = new ArrayList<CellChange>(2);
+					sheet.put(change.row, row);
+				}
+				row.add(change);
+			}
+		}
+		HashMap<Integer, ArrayList<CellChange>> sheet = rows.get(sheetName);
+		ArrayList<CellChange> row = sheet == null ? null : sheet.get(rowNum);
+		if(row != null){
+			for(CellChange change : row){
+				if(cells.length <= change.col){
+					cells = Arrays.copyOf(cells, change.col+1);
+				}
+				cells[change.col] = change.value;
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Record a change to a cell of data.xls. It is written by the next commit().
+	 * Only the last change to each cell is kept (the same flag is often set by several purchases).
+	 * @param sheetName name of the sheet
+	 * @param row row number
+	 * @param col column number
+	 * @param value new String value of the cell
+	 */
+	protected void record(String sheetName, int row, int col, String value){
+		pending.put(sheetName + '\u0000' + row + ',' + col, new CellChange(sheetName, row, col, value));
+	}
+
+	/**
+	 * Append the recorded changes to the journal as one batch and force it to disk.
+	 * The end of the last complete batch is found again while the journal is locked, so batches committed
+	 * by another run since this journal was read are kept. A journal left over from an older data.xls is
+	 * replaced, and a batch cut off by a crash is overwritten.
+	 * @return number of changes written
+	 * @throws IOException
+	 */
+	protected int commit() throws IOException{
+		if(pending.isEmpty()){
+			return 0;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(pending.size()*32);
+		DataOutputStream batch = new DataOutputStream(bytes);
+		batch.writeInt(pending.size());
+		for(CellChange change : pending.values()){
+			batch.writeByte(SET_CELL);
+			batch.writeUTF(change.sheet);
+			batch.writeInt(change.row);
+			batch.writeInt(change.col);
+			batch.writeUTF(change.value);
+		}
+		batch.close();
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+
+		FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try{
+			channel.lock(); //Released when the channel is closed
+			ByteArrayOutputStream record = new ByteArrayOutputStream(bytes.size() + HEADER_SIZE + 12);
+			DataOutputStream out = new DataOutputStream(record);
+			long end = isCurrent(channel) ? validEnd(channel) : 0;
+			if(end == 0){
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(dataFile.length());
+				out.writeLong(dataFile.lastModified());
+			}
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+			out.writeLong(crc.getValue());
+			out.close();
+			channel.truncate(end);
+			ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+			while(buffer.hasRemaining()){
+				channel.write(buffer, end + buffer.position());
+			}
+			channel.force(true);
+		} finally{
+			channel.close();
+		}
+		int committed = pending.size();
+		changes.addAll(pending.values());
+		pending.clear();
+		rows = null;
+		return committed;
+	}
+
+	/**
+	 * Forget the journal once its changes have been written into data.xls.
+	 * @throws IOException if the journal could not be deleted
+	 */
+	protected void clear() throws IOException{
+		changes.clear();
+		pending.clear();
+		rows = null;
+		if(journalFile.exists() && !journalFile.delete()){
+			throw new IOException("Unable to delete " + journalFile.getName());
+		}
+	}
+
+	/**
+	 * Read every complete batch.
+	 */
+	private void read() throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+		try{
+			in.skipBytes(HEADER_SIZE);
+			readBatches(in, journalFile.length(), changes);
+		} finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * @param channel locked journal
+	 * @return true if the journal was started on the current data.xls
+	 */
+	private boolean isCurrent(FileChannel channel) throws IOException{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while(header.hasRemaining() && channel.read(header, header.position()) >= 0){
+			//Read the whole header
+		}
+		header.flip();
+		return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == VERSION
+				&& header.getLong() == dataFile.length() && header.getLong() == dataFile.lastModified();
+	}
+
+	/**
+	 * @param channel locked journal, started on the current data.xls
+	 * @return end of the last complete batch in the journal
+	 */
+	private long validEnd(FileChannel channel) throws IOException{
+		channel.position(HEADER_SIZE);
+		//Not closed: that would close the channel
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		return readBatches(in, channel.size(), null);
+	}
+
+	/**
+	 * Read the batches that follow the header. Stops at the first batch that is cut off or fails its checksum.
+	 * @param in journal, after its header
+	 * @param fileLength size of the journal
+	 * @param into list to add the changes to (null to only check the batches)
+	 * @return end of the last complete batch
+	 */
+	private long readBatches(DataInputStream in, long fileLength, ArrayList<CellChange> into) throws IOException{
+		long end = HEADER_SIZE;
+		while(true){
+			byte[] bytes;
+			long checksum;
+			try{
+				int length = in.readInt();
+				if(length < 0 || length > fileLength){
+					return end;
+				}
+				bytes = new byte[length];
+				in.readFully(bytes);
+				checksum = in.readLong();
+			} catch(EOFException e){
+				return end;
+			}
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			if(crc.getValue() != checksum){
+				return end;
+			}
+			end += 4 + bytes.length + 8;
+			if(into != null){
+				DataInputStream batch = new DataInputStream(new ByteArrayInputStream(bytes));
+				int count = batch.readInt();
+				for(int i = 0; i<count; i++){
+					if(batch.readByte() != SET_CELL){
+						throw new IOException("Unknown change in " + journalFile.getName());
+					}
+					into.add(new CellChange(batch.readUTF(), batch.readInt(), batch.readInt(), batch.readUTF()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * A String value set in one cell of data.xls.
+	 */
+	private static class CellChange {
+		private String sheet;
+		private int row;
+		private int col;
+		private String value;
+
+		private CellChange(String sheet, int row, int col, String value){
+			this.sheet = sheet;
+			this.row = row;
+			this.col = col;
+			this.value = value;
+		}
+	}
+}
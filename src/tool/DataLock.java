@@ -0,0 +1,63 @@
+package tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lock on data.xls.lock, next to data.xls, taken by every run of the program that uses the same data.xls:
+ * the GUI's jobs that change data.xls and tool.Batch runs. Runs that change data.xls hold it exclusively,
+ * batch runs that only read it hold it shared.
+ * The lock is held by the process, so a process takes it at most once at a time.
+ * @dateEdited 10-18-2026
+ */
+class DataLock {
+	private FileChannel channel;
+	private FileLock lock;
+
+	private DataLock(FileChannel channel, FileLock lock){
+		this.channel = channel;
+		this.lock = lock;
+	}
+
+	/**
+	 * Lock data.xls, waiting for the other runs that hold it.
+	 * @param user user (for data.xls and messages)
+	 * @param exclusive true if the run changes data.xls
+	 * @return the lock, to release() once the run is done
+	 * @throws IOException if data.xls.lock can not be opened or locked
+	 */
+	protected static DataLock acquire(User user, boolean exclusive) throws IOException{
+		File lockFile = new File(user.utils.getFile("data").getPath() + ".lock");
+		FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try{
+			FileLock lock = channel.tryLock(0, Long.MAX_VALUE, !exclusive);
+			if(lock == null){
+				user.out("Waiting for another run to release data.xls...");
+				lock = channel.lock(0, Long.MAX_VALUE, !exclusive);
+			}
+			return new DataLock(channel, lock);
+		} catch(IOException e){
+			channel.close();
+			throw e;
+		} catch(RuntimeException e){
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Release the lock. Errors are ignored: the lock is released with the process anyway.
+	 */
+	protected void release(){
+		try{
+			lock.release();
+			channel.close();
+		} catch(IOException e){
+			//The lock is released with the process
+		}
+	}
+}
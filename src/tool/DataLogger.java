@@ -1,80 +1,296 @@
 package tool;
 
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileOutputStream;
-import java.io.PrintWriter;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 /**
  * Class to log entries for future reference.
  * Based on a text file.
  * Utilized by other methods for notable occurrences in the program.
+ * Entries are put on a queue and written through one writer that stays open, so logging from a loop does not
+ * open log.txt every time. When the queue is written to the file depends on DURABILITY.
+ * The log is read through a LogIndex, so it can be filtered by date, user and type of entry.
  * @author Steven Fitzpatrick
- * @dateEdited 8-31-2015
- * @version 1.2
+ * @dateEdited 10-18-2026
+ * @version 1.3
  *
  */
 
 public class DataLogger {
+	protected static final int FLUSH_EACH_ENTRY = 0; //Every entry is in log.txt when newEntry returns
+	protected static final int FLUSH_PERIODIC = 1; //Entries are written every FLUSH_MILLIS
+	protected static final int FLUSH_ON_CLOSE = 2; //Entries are written when the log is read or closed
+	protected static int DURABILITY = FLUSH_PERIODIC;
+	protected static long FLUSH_MILLIS = 1000;
+
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss");
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+
 	Utilities utils;
-	
+	private ConcurrentLinkedQueue<String> queue; //Entries not written yet
+	private BufferedWriter writer; //Only used while holding the lock on this logger
+	private ScheduledExecutorService flusher;
+	private Thread shutdownHook;
+	private volatile Timestamp lastTime; //Text of the last second formatted
+	private volatile boolean closed;
+	private LogIndex index;
+
 	/**
 	 * Create a new data logger by finding the resource file.
 	 * @param path relative file path to the logger.
 	 */
 	public DataLogger(Utilities utils){
 		this.utils = utils;
+		queue = new ConcurrentLinkedQueue<String>();
 	}
-	
+
+	/**
+	 * Add an entry to the log. May be called from any thread.
+	 * @param user user name
+	 * @param action what happened
+	 * @return false if the entry could not be written (only known when it is written right away)
+	 */
 	protected boolean newEntry(String user, String action){
+		queue.add(time() + " " + user + ":" + action + "\n");
+		if(DURABILITY == FLUSH_EACH_ENTRY || closed){
+			return flush();
+		}
+		if(DURABILITY == FLUSH_PERIODIC){
+			startFlusher();
+		}
+		return true;
+	}
+
+	/**
+	 * Write the queued entries to log.txt.
+	 * @return false if the entries could not be written
+	 */
+	protected synchronized boolean flush(){
+		if(queue.isEmpty()){
+			return true;
+		}
 		try {
-			PrintWriter write = new PrintWriter(new FileOutputStream(utils.getFile("log"), true));
-			write.append(time() + " " + user + ":" + action + "\n");
-			write.flush();
-			write.close();
+			if(writer == null){
+				File log = utils.getFile("log");
+				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(log, true)));
+				addShutdownHook();
+			}
+			String entry;
+			while((entry = queue.poll()) != null){
+				writer.write(entry);
+			}
+			writer.flush();
 		} catch (Exception e) {
 			System.err.println("Logger failed.");
 			e.printStackTrace();
+			closeWriter();
 			return false;
 		}
 		return true;
 	}
-	
+
+	/**
+	 * Write the queued entries and close log.txt. Entries added afterwards are written right away.
+	 */
+	protected void close(){
+		ScheduledExecutorService stopped;
+		synchronized(this){
+			closed = true;
+			stopped = flusher;
+			flusher = null;
+		}
+		if(stopped != null){
+			stopped.shutdown();
+		}
+		synchronized(this){
+			flush();
+			updateIndex();
+			closeWriter();
+			if(shutdownHook != null){
+				try{
+					Runtime.getRuntime().removeShutdownHook(shutdownHook);
+				} catch(IllegalStateException e){
+					//Already shutting down
+				}
+				shutdownHook = null;
+			}
+		}
+	}
+
 	protected String out(){
 		return this.out(false);
 	}
 	protected String out(boolean onlyNotes){
-		
-		String output = "";
-		if(onlyNotes){
-			output += "Printing notes:\n";
+		return query(null, null, null, onlyNotes ? LogIndex.NOTE : LogIndex.ANY, 0);
+	}
+
+	/**
+	 * Print part of the log. The options may be combined, i.e. "notes user sam from 01-01-2026 last 20":
+	 * notes or errors (type of entry), user [name], from [MM-dd-yyyy], to [MM-dd-yyyy], last [number of entries].
+	 * @param options filters, separated by spaces
+	 * @return the matching entries
+	 */
+	protected String out(String options){
+		LocalDateTime from = null;
+		LocalDateTime to = null;
+		String user = null;
+		int type = LogIndex.ANY;
+		int last = 0;
+		String[] words = options.trim().split("\\s+");
+		try{
+			for(int i = 0; i<words.length; i++){
+				String word = words[i];
+				if(word.isEmpty()){
+					continue;
+				} else if(word.equals("notes")){
+					type = LogIndex.NOTE;
+				} else if(word.equals("errors")){
+					type = LogIndex.ERROR;
+				} else if(word.equals("user") && i + 1 < words.length){
+					user = words[++i];
+				} else if(word.equals("from") && i + 1 < words.length){
+					from = LocalDate.parse(words[++i], DATE_FORMAT).atStartOfDay();
+				} else if(word.equals("to") && i + 1 < words.length){
+					to = LocalDate.parse(words[++i], DATE_FORMAT).atTime(LocalTime.MAX);
+				} else if(word.equals("last") && i + 1 < words.length){
+					last = Integer.parseInt(words[++i]);
+				} else{
+					return "Unknown log option: " + word;
+				}
+			}
+		} catch(DateTimeParseException e){
+			return "Dates must be written as MM-dd-yyyy.";
+		} catch(NumberFormatException e){
+			return "last must be followed by a number of entries.";
+		}
+		return query(from, to, user, type, last);
+	}
+
+	private String query(LocalDateTime from, LocalDateTime to, String user, int type, int last){
+		flush();
+		StringBuilder output = new StringBuilder();
+		if(type == LogIndex.NOTE){
+			output.append("Printing notes:\n");
 		}
-		Scanner reader;
 		try {
-			reader = new Scanner(utils.getFile("log"));
-			while(reader.hasNext()){
-				String currentOut = reader.nextLine() + "\n";
-				if(onlyNotes){
-					if(!currentOut.contains("Note:")){
-						currentOut = "";
-					}
-				}
-				output+=currentOut;
+			List<String> entries = index().query(from, to, user, type, last);
+			for(String entry : entries){
+				output.append(entry).append('\n');
 			}
-			reader.close();
 		} catch (Exception e) {
 			System.err.println("Logger failed to output.");
-			output = "Logger Failure.";
 			e.printStackTrace();
+			return "Logger Failure.";
 		}
-		return output;
+		return output.toString();
 	}
-	
+
+	private synchronized LogIndex index(){
+		if(index == null){
+			index = new LogIndex(utils.getFile("log"));
+		}
+		return index;
+	}
+
+	/**
+	 * Index the entries written so far, so the next query only has a few to catch up on.
+	 */
+	private void updateIndex(){
+		try{
+			index().update();
+		} catch(IOException e){
+			System.err.println("Logger failed to update its index.");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @return the current time, formatted once per second
+	 */
 	private String time(){
-		DateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss");
-		Date date = new Date();
-		return dateFormat.format(date);
-		
+		long second = System.currentTimeMillis()/1000;
+		Timestamp last = lastTime;
+		if(last == null || last.second != second){
+			last = new Timestamp(second, LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault()).format(TIME_FORMAT));
+			lastTime = last;
+		}
+		return last.text;
+	}
+
+	private synchronized void startFlusher(){
+		if(flusher != null || closed){
+			return;
+		}
+		flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "log-flusher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		flusher.scheduleWithFixedDelay(new Runnable(){
+			@Override
+			public void run() {
+				if(!queue.isEmpty()){
+					flush();
+					updateIndex();
+				}
+			}
+		}, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Write what is left in the queue if the program exits without calling close().
+	 */
+	private void addShutdownHook(){
+		if(shutdownHook == null){
+			shutdownHook = new Thread(new Runnable(){
+				@Override
+				public void run() {
+					flush();
+				}
+			}, "log-shutdown");
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+		}
+	}
+
+	private void closeWriter(){
+		if(writer != null){
+			try{
+				writer.close();
+			} catch(IOException e){
+				e.printStackTrace();
+			}
+			writer = null;
+		}
+	}
+
+	/**
+	 * A second and its formatted text.
+	 */
+	private static class Timestamp {
+		private final long second;
+		private final String text;
+
+		private Timestamp(long second, String text){
+			this.second = second;
+			this.text = text;
+		}
 	}
 }
@@ -0,0 +1,222 @@
+package tool;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the data imported from data.xls (the ExcelReader's currentData and header).
+ * Stored next to data.xls as data.xls.snapshot and read with one channel read on startup. It is not memory
+ * mapped: on Windows a mapping keeps the file from being replaced until it is garbage collected, so the
+ * snapshot could not be rebuilt in the same session.
+ * The snapshot is only used while the length, modification time and CRC32 of data.xls
+ * (and the column settings, and the length of its journal) match the values stored in it. Otherwise data.xls is parsed and the snapshot rebuilt.
+ * @dateEdited 10-18-2026
+ */
+class DataSnapshot {
+	private static final int MAGIC = 0x46435353; //"FCSS"
+	private static final int VERSION = 3;
+	private static final int HEADER_SIZE = 44; //magic, version, length, modified, settings, checksum, journal length
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * @param dataFile data.xls
+	 * @return the snapshot file for data.xls
+	 */
+	protected static File snapshotFile(File dataFile){
+		return new File(dataFile.getPath() + ".snapshot");
+	}
+
+	/**
+	 * Load currentData and the header from the snapshot, if it is still valid for data.xls.
+	 * @param reader ExcelReader to fill
+	 * @param dataFile data.xls
+	 * @return true if the snapshot was used, false if data.xls needs to be parsed.
+	 */
+	protected static boolean load(ExcelReader reader, File dataFile){
+		File snapshot = snapshotFile(dataFile);
+		if(!snapshot.exists()){
+			return false;
+		}
+		try{
+			RandomAccessFile file = new RandomAccessFile(snapshot, "r");
+			try{
+				FileChannel channel = file.getChannel();
+				ByteBuffer check = ByteBuffer.allocate(HEADER_SIZE);
+				while(check.hasRemaining() && channel.read(check) >= 0){
+				}
+				check.flip();
+				if(check.remaining() < HEADER_SIZE || check.getInt() != MAGIC || check.getInt() != VERSION){
+					return false;
+				}
+				if(check.getLong() != dataFile.length() || check.getLong() != dataFile.lastModified()
+						|| check.getInt() != settingsHash(reader.columns) || check.getLong() != checksum(dataFile)
+						|| check.getLong() != DataJournal.journalFile(dataFile).length()){
+					return false;
+				}
+				ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - HEADER_SIZE));
+				while(buffer.hasRemaining() && channel.read(buffer) >= 0){
+				}
+				buffer.flip();
+				int headerLength = buffer.getInt();
+				String[] header = null;
+				if(headerLength >= 0){
+					header = new String[headerLength];
+					for(int i = 0; i<headerLength; i++){
+						header[i] = getString(buffer);
+					}
+				}
+				reader.setHeader(header);
+				int numItems = buffer.getInt();
+				for(int i = 0; i<numItems; i++){
+					reader.putItem(getItem(buffer, reader.fiscalYears));
+				}
+				return true;
+			} finally{
+				file.close();
+			}
+		} catch(Exception e){
+			reader.currentData.clear();
+			reader.setHeader(null);
+			return false;
+		}
+	}
+
+	/**
+	 * Write the snapshot of the reader's current data for data.xls.
+	 * Written to a temporary file first, so a failed write never leaves a half written snapshot.
+	 * @param reader ExcelReader that just imported data.xls
+	 * @param dataFile data.xls
+	 * @throws IOException
+	 */
+	protected static void save(ExcelReader reader, File dataFile) throws IOException{
+		File snapshot = snapshotFile(dataFile);
+		File temp = new File(snapshot.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(dataFile.length());
+			out.writeLong(dataFile.lastModified());
+			out.writeInt(settingsHash(reader.columns));
+			out.writeLong(checksum(dataFile));
+			out.writeLong(DataJournal.journalFile(dataFile).length());
+			if(reader.header == null){
+				out.writeInt(-1);
+			} else{
+				out.writeInt(reader.header.length);
+				for(String column : reader.header){
+					putString(out, column);
+				}
+			}
+			out.writeInt(reader.currentData.size());
+			for(FoodItem item : reader.currentData.values()){
+				putItem(out, item);
+			}
+		} finally{
+			out.close();
+		}
+		if(snapshot.exists() && !snapshot.delete() || !temp.renameTo(snapshot)){
+			temp.delete();
+			throw new IOException("Unable to replace " + snapshot.getName());
+		}
+	}
+
+	/**
+	 * CRC32 of the whole file.
+	 * Read through a channel rather than a memory map, which would keep data.xls locked on Windows.
+	 */
+	private static long checksum(File dataFile) throws IOException{
+		RandomAccessFile file = new RandomAccessFile(dataFile, "r");
+		try{
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+			CRC32 crc = new CRC32();
+			while(channel.read(buffer) >= 0){
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+			return crc.getValue();
+		} finally{
+			file.close();
+		}
+	}
+
+	/**
+	 * The settings that change how data.xls is imported. A snapshot made with other settings is not used.
+	 */
+	private static int settingsHash(ColumnSchema columns){
+		return Arrays.hashCode(new Object[]{ExcelReader.HISTORICAL_DATA, ExcelReader.HISTORICAL_TRUE, ExcelReader.HEADER_ROW,
+				columns.itemName, columns.rcvUnit, columns.vendor,
+				columns.readFao, columns.readWeightPerUnit, columns.readWeightUnit});
+	}
+
+	private static void putItem(DataOutputStream out, FoodItem item) throws IOException{
+		putString(out, item.getItemName());
+		putString(out, item.getReceiveUnit());
+		putString(out, item.getVendor());
+		String[] faos = item.getFAOCategories();
+		for(int i = 0; i<4; i++){
+			putString(out, faos[i]);
+		}
+		out.writeDouble(item.getWeightPerItem());
+		putString(out, item.getWeightUnit());
+		out.writeInt(item.getRowNum());
+		out.writeBoolean(item.hasHistoricalData());
+		out.writeLong(item.getHistoricalYearsMask());
+		out.writeLong(item.getHistoricalMask());
+	}
+
+	/**
+	 * Read an item. Its fiscal year bits are the same as when it was written, since the header is.
+	 */
+	private static FoodItem getItem(ByteBuffer buffer, FiscalYearIndex fiscalYears){
+		String name = getString(buffer);
+		String receiveUnit = getString(buffer);
+		String vendor = getString(buffer);
+		String[] faos = new String[4];
+		for(int i = 0; i<4; i++){
+			faos[i] = getString(buffer);
+		}
+		double weightPerUnit = buffer.getDouble();
+		String weightUnit = getString(buffer);
+		FoodItem item = new FoodItem(name, receiveUnit, vendor, faos, weightPerUnit, weightUnit);
+		int rowNum = buffer.getInt();
+		boolean historical = buffer.get() != 0;
+		long historicalYears = buffer.getLong();
+		long historicalData = buffer.getLong();
+		if(historical){
+			item.addHistoricalData(fiscalYears, historicalYears, historicalData, rowNum);
+		}
+		return item;
+	}
+
+	private static void putString(DataOutputStream out, String str) throws IOException{
+		if(str == null){
+			out.writeInt(-1);
+		} else{
+			byte[] bytes = str.getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String getString(ByteBuffer buffer){
+		int length = buffer.getInt();
+		if(length < 0){
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+}
@@ -0,0 +1,205 @@
+package tool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+/**
+ * Streams the last sheet of data.xls into an ExcelReader using the HSSF event API.
+ * Only the records of the last sheet are turned into rows; the rest of the workbook is skipped,
+ * so the full HSSFWorkbook object model is never built.
+ * Rows are buffered one row block (up to 32 rows, ended by a DBCell record) at a time.
+ * @dateEdited 10-18-2026
+ */
+class DataStreamReader implements HSSFListener {
+	private ExcelReader reader;
+	private DataJournal journal; //changes to data.xls that are not written into it yet
+
+	private SSTRecord strings; //Shared string table from the workbook globals
+	private ArrayList<String> sheetNames;
+	private int depth; //BOF/EOF nesting. 0 = between sub streams
+	private int sheetIndex;
+	private boolean inDataSheet;
+	private boolean sheetCompleted;
+
+	private int firstRow;
+	private int lastRow; //last row sent to the reader
+	private TreeMap<Integer, Object[]> rowBlock;
+	private FormulaRecord pendingFormula; //formula waiting on its StringRecord
+
+	/**
+	 * @param reader the ExcelReader that will receive the rows.
+	 * @param journal journal of data.xls, applied to the rows before they are imported
+	 */
+	DataStreamReader(ExcelReader reader, DataJournal journal){
+		this.reader = reader;
+		this.journal = journal;
+	}
+
+	/**
+	 * Stream the last sheet of the given workbook into the reader.
+	 * @param dataFile data.xls
+	 * @throws IOException if the file can not be read, or the last sheet was never reached
+	 */
+	protected void read(File dataFile) throws IOException{
+		sheetNames = new ArrayList<String>();
+		rowBlock = new TreeMap<Integer, Object[]>();
+		depth = 0;
+		sheetIndex = -1;
+		firstRow = -1;
+		lastRow = -1;
+		inDataSheet = false;
+		sheetCompleted = false;
+		InputStream input = new FileInputStream(dataFile);
+		try{
+			HSSFRequest request = new HSSFRequest();
+			request.addListenerForAllRecords(this);
+			new HSSFEventFactory().processWorkbookEvents(request, new POIFSFileSystem(input));
+		} finally{
+			input.close();
+		}
+		if(!sheetCompleted){
+			throw new IOException("Unable to stream the last sheet of " + dataFile.getName());
+		}
+	}
+
+	@Override
+	public void processRecord(Record record) {
+		if(record instanceof BOFRecord){
+			depth++;
+			if(depth == 1 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK){
+				sheetIndex++;
+				if(sheetIndex == sheetNames.size()-1){
+					inDataSheet = true;
+					reader.user.out("Importing " + sheetNames.get(sheetIndex));
+				}
+			}
+		} else if(record instanceof EOFRecord){
+			depth--;
+			if(depth == 0 && inDataSheet){
+				flushRows();
+				inDataSheet = false;
+				sheetCompleted = true;
+			}
+		} else if(record instanceof BoundSheetRecord){
+			sheetNames.add(((BoundSheetRecord) record).getSheetname());
+		} else if(record instanceof SSTRecord){
+			strings = (SSTRecord) record;
+		} else if(inDataSheet && depth == 1){
+			processSheetRecord(record);
+		}
+	}
+
+	/**
+	 * Handle a record from inside the data sheet.
+	 * @param record current record
+	 */
+	private void processSheetRecord(Record record){
+		if(record instanceof RowRecord){
+			int rowNum = ((RowRecord) record).getRowNumber();
+			if(firstRow < 0){
+				firstRow = rowNum;
+			}
+			if(!rowBlock.containsKey(rowNum)){
+				rowBlock.put(rowNum, new Object[0]);
+			}
+		} else if(record instanceof DBCellRecord){
+			flushRows();
+		} else if(record instanceof LabelSSTRecord){
+			LabelSSTRecord label = (LabelSSTRecord) record;
+			setCell(label, strings.getString(label.getSSTIndex()).getString());
+		} else if(record instanceof LabelRecord){
+			LabelRecord label = (LabelRecord) record;
+			setCell(label.getRow(), label.getColumn(), label.getValue());
+		} else if(record instanceof NumberRecord){
+			NumberRecord number = (NumberRecord) record;
+			setCell(number, number.getValue());
+		} else if(record instanceof BlankRecord){
+			setCell((BlankRecord) record, SheetRow.BLANK);
+		} else if(record instanceof BoolErrRecord){
+			BoolErrRecord boolErr = (BoolErrRecord) record;
+			setCell(boolErr, boolErr.isBoolean() ? (Object) boolErr.getBooleanValue() : SheetRow.BLANK);
+		} else if(record instanceof FormulaRecord){
+			FormulaRecord formula = (FormulaRecord) record;
+			if(formula.hasCachedResultString()){
+				pendingFormula = formula;
+			} else if(formula.getCachedResultType() == HSSFCell.CELL_TYPE_NUMERIC){
+				setCell(formula, formula.getValue());
+			} else if(formula.getCachedResultType() == HSSFCell.CELL_TYPE_BOOLEAN){
+				setCell(formula, formula.getCachedBooleanValue());
+			} else{
+				setCell(formula, SheetRow.BLANK);
+			}
+		} else if(record instanceof StringRecord && pendingFormula != null){
+			setCell(pendingFormula, ((StringRecord) record).getString());
+			pendingFormula = null;
+		}
+	}
+
+	private void setCell(CellValueRecordInterface cell, Object value){
+		setCell(cell.getRow(), cell.getColumn(), value);
+	}
+
+	private void setCell(int rowNum, int col, Object value){
+		if(firstRow < 0){
+			firstRow = rowNum;
+		}
+		Object[] cells = rowBlock.get(rowNum);
+		if(cells == null){
+			cells = new Object[col+1];
+		} else if(cells.length <= col){
+			cells = Arrays.copyOf(cells, col+1);
+		}
+		cells[col] = value;
+		rowBlock.put(rowNum, cells);
+	}
+
+	/**
+	 * Send every buffered row to the reader, in row order.
+	 * Rows at or before the first row of the sheet are not data (same as the full workbook import).
+	 * Missing rows between data rows are reported, as the full workbook import does.
+	 */
+	private void flushRows(){
+		for(Map.Entry<Integer, Object[]> entry : rowBlock.entrySet()){
+			Object[] cells = journal.apply(sheetNames.get(sheetIndex), entry.getKey(), entry.getValue());
+			SheetRow row = new SheetRow(entry.getKey(), cells);
+			if(row.getRowNum() == ExcelReader.HEADER_ROW){
+				reader.setHeader(reader.importHeaderRow(row));
+			}
+			if(row.getRowNum() > firstRow){
+				for(int missing = Math.max(lastRow, firstRow)+1; missing < row.getRowNum(); missing++){
+					reader.user.utils.exceptionHandler(new NullPointerException(), "Unable to import row " + missing);
+				}
+				reader.importDataRow(row);
+				lastRow = row.getRowNum();
+			}
+		}
+		rowBlock.clear();
+	}
+}
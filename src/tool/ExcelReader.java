@@ -1,13 +1,12 @@
 package tool;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 
 import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
@@ -27,28 +26,17 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 
 public class ExcelReader {
 	protected static String HISTORICAL_TRUE = "t";
-	protected TreeMap<String, FoodItem> currentData; //Full List of Food Items by Name
+	protected ItemIndex currentData; //Full List of Food Items by Name
 	protected User user; //Used for output
-	
-	protected static int ITEM_NAME = 0;
-	protected static int RCV_UNIT = 1;
-	protected static int VENDOR = 2;
-	
-	protected static int QUANTITY = 3;
-	protected static int PRICE = 4;
-	
-	protected static int READ_FAO = 3;
-	protected static int READ_WEIGHT_PER_UNIT = 7;
-	protected static int READ_WEIGHT_UNIT = 8;
-	
-	protected static int WRITE_FAO = 4;
-	protected static int WRITE_WEIGHT_PER_UNIT = 8;
-	protected static int WRITE_WEIGHT_UNIT = 9;
-	protected static int COST = 10;
+	protected ColumnSchema columns; //Columns of data.xls (from settings.txt)
 	
 	protected static boolean HISTORICAL_DATA = false;
 	protected static int HEADER_ROW = 1;
 	protected String[] header;
+	protected FiscalYearIndex fiscalYears; //Fiscal year columns of the header
+	protected WorkbookCache workbooks; //Workbooks parsed during this session
+	private MetaIndex meta; //Meta sheet records of the shared data.xls workbook
+	private HSSFWorkbook metaBook; //Workbook meta was read from
 	
 	/**
 	 * Initialize this Excel Reader.
@@ -59,8 +47,11 @@ public class ExcelReader {
 	 */
 	public ExcelReader(User user) throws IllegalArgumentException{
 		user.out("Attempting to load critical resources...");
-		currentData = new TreeMap<String,FoodItem>(); //Initialize the list
+		currentData = new ItemIndex(); //Initialize the list
+		fiscalYears = new FiscalYearIndex(null, 0);
+		workbooks = new WorkbookCache();
 		this.user = user; //Store the path for output.
+		columns = user.utils.columns();
 		try {
 			importData(); //Imports data from data.xls and stores it in currentData HashMap
 		} catch (IOException e) {
@@ -94,20 +85,33 @@ public class ExcelReader {
 	 * @throws IOException
 	 */
 	protected void importNewDataExcel(File sourceFile) throws IOException{
+		try{
+			importNewData(sourceFile);
+		} catch(CancellationException e){
+			user.out("Import cancelled. Reloading data.xls...");
+			currentData.clear();
+			importData(); //Drop the items imported before the cancellation
+			throw e;
+		}
+	}
+	
+	private void importNewData(File sourceFile) throws IOException{
 		HSSFWorkbook databook = this.loadBook(sourceFile);
 		HSSFSheet dataSheet = databook.getSheetAt(0);
 		ArrayList<FoodItem> newEntries = new ArrayList<FoodItem>();
 		for(int currentRow = dataSheet.getFirstRowNum(); currentRow <= dataSheet.getLastRowNum(); currentRow++){ 
+			JobExecutor.checkCancelled();
+			JobExecutor.progress(currentRow, dataSheet.getLastRowNum());
 			try{
 				FoodItem newEntry = importRow(dataSheet.getRow(currentRow));
-				if(!currentData.containsKey(newEntry.identifier())){
+				if(!currentData.containsKey(newEntry.key())){
 					newEntries.add(newEntry);
-					currentData.put(newEntry.identifier(), newEntry);
+					putItem(newEntry);
 				} else{
-					FoodItem previousItem = currentData.get(newEntry.identifier());
+					FoodItem previousItem = currentData.get(newEntry.key());
 					if(!previousItem.equals(newEntry)){
-						newEntry.addHistoricalData(previousItem.getHistorical(), previousItem.getRowNum());
-						currentData.put(newEntry.identifier(),newEntry);
+						newEntry.addHistoricalData(previousItem);
+						putItem(newEntry);
 					}
 				}
 			} catch(Exception e){
@@ -122,25 +126,80 @@ public class ExcelReader {
 	
 	/**
 	 * Imports existing data.xls file to the list. File path based on dataFilePath.
-	 * @dateEdited 10-12-2015
+	 * Uses the binary snapshot of data.xls when it is up to date. Otherwise streams the last sheet
+	 * through the HSSF event API (or loads the full workbook if that fails, dropping the rows streamed
+	 * before the failure) and rebuilds the snapshot.
+	 * @dateEdited 10-18-2026
 	 * @author fitzpats
 	 * @throws IOException
 	 */
 	protected void importData() throws IOException{
 		user.out("Attempting to load data.xls");
-		HSSFWorkbook dataBook = loadBook("data");
+		File dataFile = user.utils.getFile("data");
+		if(DataSnapshot.load(this, dataFile)){
+			user.out("Loaded data.xls from its snapshot.");
+			return;
+		}
+		try{
+			setHeader(null);
+			new DataStreamReader(this, new DataJournal(dataFile)).read(dataFile);
+		} catch(IOException e){
+			importBook(e);
+		} catch(CancellationException e){
+			throw e;
+		} catch(RuntimeException e){
+			importBook(e); //i.e., a malformed record
+		}
+		try{
+			DataSnapshot.save(this, dataFile);
+		} catch(IOException e){
+			user.out("Unable to write the data.xls snapshot.");
+		}
+		user.out("Successfully imported all data.");
+	}
+	
+	/**
+	 * Drop what was streamed from data.xls and load the full workbook instead.
+	 * @param cause why data.xls could not be streamed
+	 */
+	private void importBook(Exception cause) throws IOException{
+		user.out("Unable to stream data.xls (" + cause + "). Loading the full workbook...");
+		currentData.clear();
+		setHeader(null);
+		importBook();
+	}
+	
+	/**
+	 * Imports the last sheet of data.xls by loading the whole workbook.
+	 * Fallback for importData() when the file can not be streamed.
+	 * @dateEdited 10-18-2026
+	 * @throws IOException
+	 */
+	protected void importBook() throws IOException{
+		HSSFWorkbook dataBook = sharedBook("data");
 		HSSFSheet dataSheet = dataBook.getSheetAt(dataBook.getNumberOfSheets()-1);
 		user.out("Importing " + dataSheet.getSheetName());
-		header = importHeaderRow(dataSheet);
+		setHeader(importHeaderRow(dataSheet));
 		for(int currentRow = dataSheet.getFirstRowNum()+1; currentRow <= dataSheet.getLastRowNum(); currentRow++){ 
-			try{
-				FoodItem newItem = importRow(dataSheet.getRow(currentRow));
-				currentData.put(newItem.identifier(), newItem);
-			} catch(Exception e){
-				user.utils.exceptionHandler(e, "Unable to import row " + currentRow);
+			HSSFRow row = dataSheet.getRow(currentRow);
+			if(row != null){
+				importDataRow(new SheetRow(row));
+			} else{
+				user.utils.exceptionHandler(new NullPointerException(), "Unable to import row " + currentRow);
 			}
 		}
-		user.out("Successfully imported all data.");
+	}
+	
+	/**
+	 * Import a single row of data.xls into currentData.
+	 * @param row current row of the data sheet
+	 */
+	protected void importDataRow(SheetRow row){
+		try{
+			putItem(importRow(row));
+		} catch(Exception e){
+			user.utils.exceptionHandler(e, "Unable to import row " + row.getRowNum());
+		}
 	}
 	
 	//Helper Methods BLOCK---------------------------------------------------------------------------------------
@@ -155,14 +214,17 @@ public class ExcelReader {
 	protected void cleanData(File sourceFile) {
 		try{
 			ExcelWriter writer = new ExcelWriter(user, sourceFile, ExcelWriter.CLEAN_DATA);
-			Set<String> keys = currentData.keySet();
-			for(String current : keys){
-				FoodItem currentItem = currentData.get(current);
+			int written = 0;
+			for(FoodItem currentItem : currentData.values()){
+				JobExecutor.checkCancelled();
 				writer.writeToExcel(currentItem);
+				JobExecutor.progress(++written, currentData.size());
 			}
 			writer.save();
+		} catch(CancellationException e){
+			throw e;
 		} catch(Exception e){
-			user.out("Unable to clean the data."); 
+			user.utils.exceptionHandler(e, "Unable to clean the data.");
 		}
 	}
 	
@@ -174,26 +236,47 @@ public class ExcelReader {
 	 * @return FoodItem representation of the row
 	 */
 	protected FoodItem importRow(HSSFRow row){
-		String name = row.getCell(ExcelReader.ITEM_NAME).getStringCellValue().trim().toLowerCase(Locale.ENGLISH);
-		String receiveUnit = row.getCell(ExcelReader.RCV_UNIT).getStringCellValue();
-		String vendor = row.getCell(ExcelReader.VENDOR).getStringCellValue();
+		return importRow(new SheetRow(row));
+	}
+	
+	/**
+	 * Import the current row of data and return a FoodItem object
+	 * @dateEdited 10-18-2026
+	 * @param row current row (loaded or streamed) that needs to be processed
+	 * @return FoodItem representation of the row
+	 */
+	protected FoodItem importRow(SheetRow row){
+		return importRow(row, columns);
+	}
+	
+	/**
+	 * Import a row with the given columns (i.e., a row of a file laid out differently from data.xls).
+	 * @dateEdited 10-18-2026
+	 * @param row current row (loaded or streamed) that needs to be processed
+	 * @param columns columns of the row's file
+	 * @return FoodItem representation of the row
+	 */
+	protected FoodItem importRow(SheetRow row, ColumnSchema columns){
+		String name = row.getString(columns.itemName).trim().toLowerCase(Locale.ENGLISH);
+		String receiveUnit = row.getString(columns.rcvUnit);
+		String vendor = row.getString(columns.vendor);
 		double weightPerUnit=-5.0;
-		if(row.getCell(ExcelReader.READ_WEIGHT_PER_UNIT) != null){
-			weightPerUnit = row.getCell(ExcelReader.READ_WEIGHT_PER_UNIT).getNumericCellValue(); //weight per receive unit
+		if(row.hasCell(columns.readWeightPerUnit)){
+			weightPerUnit = row.getNumeric(columns.readWeightPerUnit); //weight per receive unit
 		}
 		String weightUnit = "";
-		if(row.getCell(ExcelReader.READ_WEIGHT_UNIT) != null){
-			weightUnit = row.getCell(ExcelReader.READ_WEIGHT_UNIT).getStringCellValue(); //weight per receive unit
+		if(row.hasCell(columns.readWeightUnit)){
+			weightUnit = row.getString(columns.readWeightUnit); //weight per receive unit
 		} 
-		int fao = ExcelReader.READ_FAO;
-		String faoName = row.getCell(fao).getStringCellValue();
-		String[] faos = new String[4];
-		while(fao<ExcelReader.READ_WEIGHT_PER_UNIT && !faoName.equals("")){
-			faos[fao-ExcelReader.READ_FAO] =faoName;
+		int fao = columns.readFao;
+		String faoName = row.getString(fao);
+		String[] faos = new String[ColumnSchema.FAO_COLUMNS];
+		while(fao<columns.readWeightPerUnit && !faoName.equals("")){
+			faos[fao-columns.readFao] =faoName;
 			fao++;
-			if(row.getCell(fao) != null){
+			if(row.hasCell(fao)){
 				try{
-					faoName = row.getCell(fao).getStringCellValue();
+					faoName = row.getString(fao);
 				} catch (Exception e){
 					throw new IllegalArgumentException("Unable to process the FAO Cattegories of " + name);
 				}
@@ -202,7 +285,7 @@ public class ExcelReader {
 			}
 		}
 		FoodItem item = new FoodItem(name, receiveUnit, vendor, faos, weightPerUnit, weightUnit);
-		readHistoricalInfo(item,row);
+		readHistoricalInfo(item,row,columns);
 		return item;
 	}
 	
@@ -211,16 +294,16 @@ public class ExcelReader {
 	 * Add historical Information to the given Food Item, if any is available.
 	 * @param item Food Item to have historical data added
 	 * @param row current Excel Row that is being processed
+	 * @param columns columns of the row's file
 	 */
-	private void readHistoricalInfo(FoodItem item, HSSFRow row) {
+	private void readHistoricalInfo(FoodItem item, SheetRow row, ColumnSchema columns) {
 		if(ExcelReader.HISTORICAL_DATA){
-			HashMap<String,Boolean> historical = new HashMap<String,Boolean>();
-			for(int i = ExcelReader.READ_WEIGHT_UNIT+1; i<header.length;i++){
-				if(row.getCell(i) != null){
-					historical.put(header[i], row.getCell(i).getStringCellValue().toLowerCase().trim().equals(ExcelReader.HISTORICAL_TRUE));
+			item.initHistoricalData(fiscalYears, row.getRowNum());
+			for(int i = columns.readWeightUnit+1; i<header.length;i++){
+				if(row.hasCell(i)){
+					item.setHistorical(fiscalYears.bitOfColumn(i), row.getString(i).toLowerCase().trim().equals(ExcelReader.HISTORICAL_TRUE));
 				}
 			}
-			item.addHistoricalData(historical, row.getRowNum());
 		}
 	}
 
@@ -232,9 +315,7 @@ public class ExcelReader {
 		try{
 			ExcelWriter writer = new ExcelWriter(user,file,ExcelWriter.CALCULATION);
 			writer.newSheet("Uncategorized purchases");
-			Set<String> keys = currentData.keySet();
-			for(String current : keys){
-				FoodItem currentItem = currentData.get(current);
+			for(FoodItem currentItem : currentData.values()){
 				if(currentItem.uncategorized()){
 					writer.writeToExcel(currentItem);
 				}
@@ -250,16 +331,14 @@ public class ExcelReader {
 		ExcelWriter writer;
 		try {
 			writer = new ExcelWriter(user,file,ExcelWriter.CALCULATION);
-			int totalNumYears = (header.length)-ExcelReader.READ_WEIGHT_PER_UNIT;
+			int totalNumYears = (header.length)-columns.readWeightPerUnit;
 			ArrayList<ArrayList<FoodItem>> freqList = new ArrayList<ArrayList<FoodItem>>();
 			for(int i = 0; i<totalNumYears;i++){
 				freqList.add(new ArrayList<FoodItem>());
 			}
 			user.out("All Items sorted by frequency...");
-			Set<String> keys = currentData.keySet();
-			for(String current : keys){
-				FoodItem currentItem = currentData.get(current);
-				freqList.get(currentItem.getHistorical().size()).add(currentItem);
+			for(FoodItem currentItem : currentData.values()){
+				freqList.get(currentItem.numHistoricalYears()).add(currentItem);
 			}
 			for(int i = freqList.size()-1;i>0; i--){
 				if(freqList.get(i).size()>0){
@@ -281,83 +360,136 @@ public class ExcelReader {
 	private String[] importHeaderRow(HSSFSheet dataSheet) {
 		HSSFRow headerRow = dataSheet.getRow(ExcelReader.HEADER_ROW);
 		if(headerRow != null){
-			String[] header = new String[headerRow.getLastCellNum()];
-			for(int i = 0; i<headerRow.getLastCellNum();i++){
-				if(headerRow.getCell(i) != null){
-					header[i] = headerRow.getCell(i).getStringCellValue();
-				} else{
-					header[i] = "";
-				}
-			}
-			return header;
+			return importHeaderRow(new SheetRow(headerRow));
 		}
 		return null;
 	}
+	
+	/**
+	 * Set the header row of data.xls and index its fiscal year columns.
+	 * @param header header row (may be null)
+	 */
+	protected void setHeader(String[] header){
+		this.header = header;
+		this.fiscalYears = new FiscalYearIndex(header, columns.readWeightUnit+1);
+	}
+	
+	/**
+	 * Add an item to currentData, replacing any item with the same identifier.
+	 * @param item item to add. Its historical data must already be complete.
+	 */
+	protected void putItem(FoodItem item){
+		FoodItem previousItem = currentData.put(item.key(), item);
+		fiscalYears.register(item, previousItem);
+	}
+	
+	protected String[] importHeaderRow(SheetRow headerRow) {
+		String[] header = new String[headerRow.getLastCellNum()];
+		for(int i = 0; i<headerRow.getLastCellNum();i++){
+			if(headerRow.hasCell(i)){
+				header[i] = headerRow.getString(i);
+			} else{
+				header[i] = "";
+			}
+		}
+		return header;
+	}
 
 	/**
 	 * Helper method to load the excel sheet from a file
-	 * @dateEdited 10-12-2015
+	 * Parses a new copy that the caller may change. When the file is data.xls, the changes in its journal
+	 * are applied to the loaded workbook.
+	 * @dateEdited 10-18-2026
 	 * @author fitzpats
 	 * @param file excel file to be opened for reading purposes
 	 * @return a HSSF WorkSheet
 	 * @throws IOException
 	 */
 	protected HSSFWorkbook loadBook(Object inputFile) throws IOException{
-		FileInputStream dataExcel;
+		return WorkbookCache.read(bookFile(inputFile));
+	}
+	
+	/**
+	 * Get the workbook of a file from the session's cache, parsing it only if it changed since it was last parsed.
+	 * The workbook is shared, so it must not be changed; use loadBook for that.
+	 * @param inputFile "data", a file path or a File
+	 * @return shared workbook
+	 * @throws IOException
+	 */
+	protected HSSFWorkbook sharedBook(Object inputFile) throws IOException{
+		return workbooks.get(bookFile(inputFile));
+	}
+	
+	private File bookFile(Object inputFile){
 		if(inputFile instanceof File){
-			dataExcel = new FileInputStream((File)inputFile);
+			return (File)inputFile;
 		} else if (inputFile instanceof String){
 			String fileName = (String) inputFile;
 			if(fileName.equals("data")){
-				dataExcel = new FileInputStream(user.utils.getFile(fileName));
+				return user.utils.getFile(fileName);
 			} else{
-				dataExcel = new FileInputStream((String) inputFile);
+				return new File((String) inputFile);
 			}
 		} else{
 			throw new IllegalArgumentException("Input given can not be loaded as a file (Not a String or File)");
 		}
-		return new HSSFWorkbook(dataExcel);
 	}
 	
 	protected String print(){
 		StringBuffer output = new StringBuffer();
-		Set<String> keys = currentData.keySet();
-		for(String current : keys){
-			output.append(currentData.get(current).toString() + '\n');
+		for(FoodItem current : currentData.values()){
+			output.append(current.toString() + '\n');
 		}
 		return output.toString();
 	}
 	
-	protected FoodItem getItem(String identifier){
-		return currentData.get(identifier);
+	protected FoodItem getItem(ItemKey key){
+		return currentData.get(key);
 	}
 
 	public String getItemsFromFY(String fiscalYear){
 		StringBuffer str = new StringBuffer();
-		Set<String> keys = currentData.keySet();
 		String fy = fiscalYear.trim().toUpperCase();
-		for(String key:keys){
-			if(currentData.get(key).itemPartOfFY(fy)){
-				str.append("Item name: " + currentData.get(key).getItemName() +" Historical Frequency: " + currentData.get(key).getFrequencyOfItem()+"\n");
-			}
+		ArrayList<FoodItem> fromFY = fiscalYears.itemsFromFY(fy);
+		Collections.sort(fromFY, ItemIndex.BY_KEY); //Same order as currentData
+		for(FoodItem item : fromFY){
+			str.append("Item name: " + item.getItemName() +" Historical Frequency: " + item.getFrequencyOfItem()+"\n");
 		}
 		return str.toString();
 	}
 
+	/**
+	 * Remove sheets from a file: "remove [file] [sheetNumber]...".
+	 * All of the sheets are removed at once (see ExcelWriter.removeSheets), numbered as before the removal.
+	 * @param input command
+	 * @dateEdited 10-18-2026
+	 */
 	public void remove(String input) {
-		String[] elements = input.split(" ");
-		File file = user.utils.getFile(elements[1]);
+		String[] elements = input.trim().split(" +");
+		if(elements.length < 3){
+			user.out("Follow remove with the file and the sheet numbers to remove.");
+			return;
+		}
+		int[] sheets = new int[elements.length - 2];
+		try{
+			for(int i = 2; i<elements.length;i++){
+				sheets[i - 2] = Integer.parseInt(elements[i]);
+			}
+		} catch(NumberFormatException e){
+			user.out("Sheet numbers must be whole numbers.");
+			return;
+		}
 		ExcelWriter writer;
 		try {
+			File file = user.utils.getFile(elements[1]);
 			writer = new ExcelWriter(user, file, ExcelWriter.REMOVE);
-			for(int i = 2; i<elements.length;i++){
-				int removeTab = Integer.parseInt(elements[i]);
-				writer.removeSheet(removeTab);
-			}
+			writer.removeSheets(sheets);
 			writer.save();
 			user.out("Remove completed.");
+		} catch (IllegalArgumentException e){
+			user.out(e.getMessage() + ". Nothing was removed (see get sheet names).");
 		} catch (Exception e) {
-			user.out("Unable to remove tab due to error.");
+			user.utils.exceptionHandler(e, "Unable to remove tab due to error.");
 		}
 	}
 
@@ -365,7 +497,7 @@ public class ExcelReader {
 		HSSFWorkbook data;
 		StringBuffer str = new StringBuffer();
 		try {
-			data = loadBook(user.utils.getFile("data"));
+			data = sharedBook("data");
 			for(int i =1; i<data.getNumberOfSheets();i++){
 				str.append(i+": "+data.getSheetName(i)+"\n");
 			}
@@ -375,4 +507,50 @@ public class ExcelReader {
 			return "";
 		}
 	}
+
+	/**
+	 * The Meta sheet records of data.xls, read again only when data.xls has changed.
+	 * @return the index of the shared workbook's Meta sheet (must not be changed)
+	 * @throws IOException
+	 * @dateEdited 10-18-2026
+	 */
+	protected synchronized MetaIndex metaIndex() throws IOException{
+		HSSFWorkbook data = sharedBook("data");
+		if(data != metaBook){
+			meta = new MetaIndex(data.getSheetAt(0));
+			metaBook = data;
+		}
+		return meta;
+	}
+
+	/**
+	 * Describe tabs of data.xls from their Meta records: "tab info [number or name]",
+	 * "tabs from file [file name]" or "tabs by user [user name]".
+	 * @param input command
+	 * @return one tab per line
+	 * @dateEdited 10-18-2026
+	 */
+	public String getTabInfo(String input) {
+		try {
+			MetaIndex index = metaIndex();
+			List<MetaIndex.Record> records;
+			if(input.startsWith("tab info ")){
+				String tab = input.substring(9).trim();
+				MetaIndex.Record record = tab.matches("\\d+") ? index.record(Integer.parseInt(tab)) : index.record(tab);
+				records = record == null ? Collections.<MetaIndex.Record>emptyList() : Collections.singletonList(record);
+			} else if(input.startsWith("tabs from file ")){
+				records = index.fromFile(input.substring(15));
+			} else{
+				records = index.byAuthor(input.substring(13));
+			}
+			StringBuffer str = new StringBuffer();
+			for(MetaIndex.Record record : records){
+				str.append(record + "\n");
+			}
+			return records.isEmpty() ? "No matching tabs in the Meta sheet." : str.toString();
+		} catch (IOException e) {
+			user.utils.exceptionHandler(e, "Unable to read the Meta sheet.");
+			return "";
+		}
+	}
 }
@@ -5,16 +5,21 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
 
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 /**
  * 
@@ -29,16 +34,23 @@ public class ExcelWriter {
 	private User user;
 	private ExcelReader reader;
 	private File saveFile;
+	private ColumnSchema columns; //Columns of the rows written (and of the purchase file for categorizations)
 	
-	private HSSFWorkbook writeBook;
-	private HSSFSheet writeSheet;
+	private Workbook writeBook;
+	private Sheet writeSheet;
 	
 	private HSSFWorkbook dataBook;
 	private HSSFSheet dataSheet;
+	private DataJournal journal; //Changes to data.xls, for the categorization settings
+	private boolean dataShared; //dataBook is the session's shared copy, so it is only read
+	private boolean dataDeferred; //The data.xls changes are recorded in a journal the caller saves
 	
 	private int inputRow;
+	private NameIndex names; //Categorized items by approximate name, built on the first lookup
+	private int approximateMatches;
 	private int historicalCol;
 	private boolean updateHistorical;
+	private boolean backupPending; //data.xls is backed up before the first sheet is removed
 	
 	//Settings
 	private int setting;
@@ -46,6 +58,11 @@ public class ExcelWriter {
 	public static final int CALCULATION = 1;
 	public static final int FOOD_CATEGORIZATION = 2;
 	public static final int REMOVE = 3;
+	public static final int STREAMED_CATEGORIZATION = 4;
+	
+	private static final int ROW_WINDOW = 100; //Rows kept in memory by the streamed .xlsx output
+	protected static boolean JOURNAL_DATA = true; //Categorizations append their data.xls changes to the journal
+	protected static boolean APPROXIMATE_MATCHING = false; //Purchases with no exact match are looked up by approximate name
 	
 	/**
 	 * Make a new ExcelWriter object. This will write to the input sheet by making a new "CalculatedSheet"
@@ -56,9 +73,43 @@ public class ExcelWriter {
 	 * @throws IOException
 	 */
 	public ExcelWriter(User user, File sourceFile, int setting) throws FileNotFoundException, IOException{
+		this(user, sourceFile, setting, user.resources.columns);
+	}
+	
+	/**
+	 * Make a new ExcelWriter object that writes rows with the given columns.
+	 * @param user user
+	 * @param sourceFile input Excel file
+	 * @param setting one of the settings below
+	 * @param columns columns of the purchase file being categorized (data.xls's columns for the other settings)
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 * @dateEdited 10-18-2026
+	 */
+	public ExcelWriter(User user, File sourceFile, int setting, ColumnSchema columns) throws FileNotFoundException, IOException{
+		this(user, sourceFile, setting, columns, null);
+	}
+	
+	/**
+	 * Make a new ExcelWriter object whose data.xls changes are recorded in a journal that is saved by the caller
+	 * (see CategorizeQueue). data.xls is then only read, from the session's shared copy.
+	 * @param user user
+	 * @param sourceFile input Excel file
+	 * @param setting one of the settings below
+	 * @param columns columns of the purchase file being categorized (data.xls's columns for the other settings)
+	 * @param dataChanges journal to record the data.xls changes in, or null to save them with this writer
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 * @dateEdited 10-18-2026
+	 */
+	public ExcelWriter(User user, File sourceFile, int setting, ColumnSchema columns, DataJournal dataChanges)
+			throws FileNotFoundException, IOException{
 		loadResources(user);
-		loadDataExcel();
 		this.setting = setting;
+		this.columns = columns;
+		dataDeferred = dataChanges != null;
+		journal = dataChanges;
+		loadDataExcel();
 		if(setting == ExcelWriter.CLEAN_DATA){
 			cleanData(sourceFile);
 		} else if(setting == ExcelWriter.FOOD_CATEGORIZATION){
@@ -67,6 +118,8 @@ public class ExcelWriter {
 			calculation(sourceFile);
 		} else if(setting == ExcelWriter.REMOVE){
 			remove(sourceFile);
+		} else if(setting == ExcelWriter.STREAMED_CATEGORIZATION){
+			streamedCategorization(sourceFile);
 		}
 		
 	}
@@ -101,6 +154,29 @@ public class ExcelWriter {
 		user.out("New cattegorization file made.");
 	}
 	
+	/**
+	 * Initialize the streamed categorization setting.
+	 * Same as the categorization setting, but the calculated sheet is written to a new .xlsx file next to the
+	 * purchase file through a SXSSFWorkbook. Only the last ROW_WINDOW rows are kept in memory; older rows are
+	 * flushed to a temporary file as they are written, so the output is not limited by the heap or by the
+	 * 65,536 rows of an .xls sheet. Historical data in data.xls is still updated.
+	 * @param sourceFile purchase file being categorized
+	 * @dateEdited 10-18-2026
+	 */
+	private void streamedCategorization(File sourceFile){
+		String name = sourceFile.getName();
+		if(name.lastIndexOf('.') > 0){
+			name = name.substring(0, name.lastIndexOf('.'));
+		}
+		saveFile = new File(sourceFile.getAbsoluteFile().getParentFile(), name + " Calculated.xlsx");
+		SXSSFWorkbook book = new SXSSFWorkbook(ROW_WINDOW);
+		book.setCompressTempFiles(true);
+		writeBook = book;
+		writeSheet = writeBook.createSheet("Calculated Sheet");
+		inputRow = 1;
+		user.out("New categorization file made: " + saveFile.getName());
+	}
+	
 	/**
 	 * Initialize the calculation setting.
 	 * This setting is for outputting calculations without changing data.xls
@@ -115,13 +191,12 @@ public class ExcelWriter {
 	
 	/**
 	 * Initialize the remove setting.
-	 * Check if the file is the same as data. If it is, then backup data.xls
+	 * Check if the file is the same as data. If it is, then data.xls is backed up before the first removal.
 	 * @throws IOException
 	 */
 	private void remove(File removeFile) throws IOException {
 		if(user.utils.getFile("data").equals(removeFile)){
-			backupData(user);
-			loadDataExcel();
+			backupPending = true;
 			writeBook = dataBook;
 			writeSheet = writeBook.getSheet("Meta");
 		} else{
@@ -137,30 +212,141 @@ public class ExcelWriter {
 	
 	/**
 	 * Load data.xls excel sheet, for historical purposes.
+	 * Settings that never write the whole workbook (calculations, and categorizations that use the journal)
+	 * read the session's shared copy. The others load their own copy, which they change.
 	 * @throws IOException
 	 */
 	private void loadDataExcel() throws IOException {
-		dataBook = reader.loadBook("data");
+		dataShared = setting == ExcelWriter.CALCULATION || ((JOURNAL_DATA || dataDeferred) && isCategorization());
+		dataBook = dataShared ? reader.sharedBook("data") : reader.loadBook("data");
+		if(!dataDeferred){
+			journal = new DataJournal(user.utils.getFile("data"));
+		}
 		dataSheet = dataBook.getSheetAt(dataBook.getNumberOfSheets()-1);
 		if(reader.header[reader.header.length-1].equals(user.fiscalYear)){
 			historicalCol = reader.header.length -1;
 		} else{
 			historicalCol = dataSheet.getRow(ExcelReader.HEADER_ROW).getLastCellNum();
-			dataSheet.getRow(ExcelReader.HEADER_ROW).createCell(historicalCol).setCellValue(user.fiscalYear);
+			setDataCell(ExcelReader.HEADER_ROW, historicalCol, user.fiscalYear);
 		}
 	}
 	
-	public static void backupData(User user){
-		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-		Date date = new Date();
+	/**
+	 * Set a cell of the data sheet of data.xls, and record the change for the journal.
+	 * @param rowNum row number
+	 * @param col column number
+	 * @param value new value
+	 */
+	private void setDataCell(int rowNum, int col, String value){
+		if(!dataShared){
+			dataSheet.getRow(rowNum).createCell(col).setCellValue(value);
+		}
+		journal.record(dataSheet.getSheetName(), rowNum, col, value);
+	}
+	
+	private boolean isCategorization(){
+		return setting == ExcelWriter.FOOD_CATEGORIZATION || setting == ExcelWriter.STREAMED_CATEGORIZATION;
+	}
+	
+	/**
+	 * Back up data.xls and its journal into the backup store, then prune the backups the retention policy
+	 * does not keep. data.xls is copied as it is on disk; it is not parsed.
+	 * @param user user
+	 * @return false if the backup failed
+	 * @dateEdited 10-18-2026
+	 */
+	public static boolean backupData(User user){
+		JobExecutor.saving();
+		return makeBackup(user) && pruneBackups(user);
+	}
+	
+	/**
+	 * Back up data.xls and its journal into the backup store, without pruning it.
+	 * @param user user
+	 * @return false if the backup failed
+	 */
+	private static boolean makeBackup(User user){
 		try{
-			HSSFWorkbook backupFile = user.resources.loadBook(user.utils.getFile("data"));
-			backupFile.write(new FileOutputStream(new File("src/resources/backups/"+user.user+ "_"+ dateFormat.format(date)+".xls")));
-			user.log.newEntry(user.user, "made a backup of data.xls");
-			user.out("Backup of data.xls created.");
+			BackupStore store = new BackupStore(user.utils.getFile("backups"));
+			BackupStore.Snapshot backup = store.backup(user.utils.getFile("data"), user.user);
+			user.log.newEntry(user.user, "made a backup of data.xls (" + backup.name + ")");
+			user.out("Backup of data.xls created: " + backup.name + " (" + store.bytesWritten + " of " + backup.length()
+					+ " bytes stored).");
+			return true;
 		} catch(Exception e){
 			user.utils.exceptionHandler(e, "Unable to backup data");
+			return false;
+		}
+	}
+	
+	/**
+	 * Delete the backups the retention policy does not keep. A failure is reported but does not undo the backup.
+	 * @param user user
+	 * @return true, since the backups that were made are still there
+	 */
+	private static boolean pruneBackups(User user){
+		try{
+			int pruned = new BackupStore(user.utils.getFile("backups")).prune();
+			if(pruned > 0){
+				user.out("Removed " + pruned + " old backups.");
+			}
+		} catch(Exception e){
+			user.utils.exceptionHandler(e, "Unable to remove old backups");
+		}
+		return true;
+	}
+
+	/**
+	 * Put data.xls and its journal back as they were in a backup, and load it again.
+	 * The current data.xls is backed up first, so a restore can be undone. Old backups are only pruned once
+	 * the restore is done, so the backup being restored is never pruned by the backup made before it.
+	 * @param user user
+	 * @param name name of the backup (see listBackups)
+	 * @return false if data.xls was not restored
+	 * @dateEdited 10-18-2026
+	 */
+	public static boolean restoreData(User user, String name){
+		JobExecutor.saving();
+		if(!new BackupStore(user.utils.getFile("backups")).exists(name)){
+			user.out("No backup named " + name + " (see list backups).");
+			return false;
+		}
+		if(!makeBackup(user)){
+			user.out("Restore cancelled.");
+			return false;
+		}
+		try{
+			File dataFile = user.utils.getFile("data");
+			new BackupStore(user.utils.getFile("backups")).restore(name, dataFile);
+			user.log.newEntry(user.user, "restored data.xls from backup " + name);
+			user.out("Restored data.xls from " + name + ". Reloading data.xls...");
+			user.resources.workbooks.clear();
+			user.resources.currentData.clear();
+			user.resources.importData();
+			return pruneBackups(user);
+		} catch(Exception e){
+			user.utils.exceptionHandler(e, "Unable to restore backup " + name);
+			return false;
+		}
+	}
+
+	/**
+	 * @param user user
+	 * @return the backups in the store, oldest first, one per line
+	 * @dateEdited 10-18-2026
+	 */
+	public static String listBackups(User user){
+		StringBuilder list = new StringBuilder();
+		try{
+			DateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss");
+			for(BackupStore.Snapshot backup : new BackupStore(user.utils.getFile("backups")).list()){
+				list.append(backup.name + "\t" + dateFormat.format(new Date(backup.created)) + "\t" + backup.user + "\t"
+						+ backup.length() + " bytes\n");
+			}
+		} catch(Exception e){
+			user.utils.exceptionHandler(e, "Unable to list the backups");
 		}
+		return list.length() == 0 ? "No backups." : list.toString().trim();
 	}
 	
 	public void setHistorical(boolean updateHistorical){
@@ -172,34 +358,63 @@ public class ExcelWriter {
 	}
 	
 	public void removeSheet(int sheetNumber){
-		if(sheetNumber>0 && sheetNumber< writeBook.getNumberOfSheets()){
-			user.out("Attempting to remove sheet " + writeBook.getSheetName(sheetNumber));
-			writeBook.removeSheetAt(sheetNumber);
-			removeFromMeta(sheetNumber);
-			user.out("Successfully removed sheet.");
-		} else{
+		try{
+			removeSheets(new int[]{sheetNumber});
+		} catch(IllegalArgumentException e){
 			user.out("invalid sheet number.");
+		} catch(IOException e){
+			user.utils.exceptionHandler(e, "Unable to remove sheet " + sheetNumber);
 		}
 	}
 	
-	private void removeFromMeta(int sheetNumber) {
-		if(writeSheet != null){
-			/*
-			 * Find the first row for this.
-			 */
-			int curRow = 12;
-			double finalRow = writeSheet.getRow(0).getCell(1).getNumericCellValue()-7;
-			curRow+=4*(sheetNumber-1);
-			int lastRowNum=writeSheet.getLastRowNum();
-		    if(curRow <lastRowNum-4){
-		        writeSheet.shiftRows(curRow+4,lastRowNum, -4);
-		    }
-			while(curRow<=finalRow){
-				double curTab = writeSheet.getRow(curRow).getCell(1).getNumericCellValue();
-				writeSheet.getRow(curRow).getCell(1).setCellValue((curTab-1));
-				curRow= curRow+4;
+	/**
+	 * Remove several sheets at once. Sheet numbers are the numbers before any of them is removed
+	 * (i.e., removing 2 and 3 removes the sheets shown as 2 and 3 by get sheet names).
+	 * Every number is checked before anything is removed, data.xls is backed up once, and the Meta sheet's
+	 * records of the removed tabs are dropped in one pass.
+	 * @param sheetNumbers numbers of the sheets to remove (the Meta sheet, 0, can not be removed)
+	 * @throws IllegalArgumentException if a number is not the number of a sheet
+	 * @throws IOException if data.xls could not be backed up
+	 * @dateEdited 10-18-2026
+	 */
+	public void removeSheets(int[] sheetNumbers) throws IOException{
+		int[] sorted = sheetNumbers.clone();
+		Arrays.sort(sorted);
+		StringBuilder invalid = new StringBuilder();
+		for(int i = 0; i<sorted.length; i++){
+			if(sorted[i] <= 0 || sorted[i] >= writeBook.getNumberOfSheets() || (i > 0 && sorted[i] == sorted[i - 1])){
+				invalid.append(" " + sorted[i]);
 			}
-			 writeSheet.getRow(0).getCell(1).setCellValue(finalRow-4);
+		}
+		if(invalid.length() > 0){
+			throw new IllegalArgumentException("Invalid sheet numbers:" + invalid);
+		}
+		if(sorted.length == 0){
+			return;
+		}
+		if(backupPending){
+			if(!backupData(user)){
+				throw new IOException("data.xls could not be backed up");
+			}
+			backupPending = false;
+		}
+		for(int i = sorted.length - 1; i>=0; i--){ //Last first, so the other numbers do not move
+			user.out("Removing sheet " + sorted[i] + ": " + writeBook.getSheetName(sorted[i]));
+			writeBook.removeSheetAt(sorted[i]);
+		}
+		removeFromMeta(sorted);
+		user.out("Successfully removed " + sorted.length + (sorted.length == 1 ? " sheet." : " sheets."));
+	}
+	
+	/**
+	 * Drop the Meta sheet records of the removed tabs and renumber the others, in one pass (see MetaIndex).
+	 * @param removed sorted numbers of the removed sheets
+	 */
+	private void removeFromMeta(int[] removed) {
+		if(writeSheet != null){
+			MetaIndex meta = new MetaIndex((HSSFSheet) writeSheet);
+			meta.remove(removed);
+			meta.write();
 		}
 	}
 
@@ -215,7 +430,7 @@ public class ExcelWriter {
 	 */
 	public void writeToExcel(FoodItem item){
 		try{
-			if(setting==ExcelWriter.FOOD_CATEGORIZATION){
+			if(isCategorization()){
 				writeToCalculated(item);
 			} else{
 				writeToClean(item);
@@ -225,18 +440,32 @@ public class ExcelWriter {
 		}
 	}
 	
+	/**
+	 * Write a categorized food item whose data.xls entry has already been looked up.
+	 * Used by the parallel categorization, which does the lookups off of this thread.
+	 * @param item food item to write
+	 * @param currentItem matching item from data.xls, or null if it is not categorized
+	 */
+	public void writeToExcel(FoodItem item, FoodItem currentItem){
+		try{
+			writeToCalculated(item, currentItem);
+		} catch(Exception e){
+			user.out("ERROR: failed to write item " + item.getItemName() + " on row " + (inputRow -1) +" Exception: " + e);
+		}
+	}
+	
 	/**
 	 * Helper method to write to the data.xls for cleanData() purposes
 	 * @param item current FoodItem
 	 */
 	private void writeToClean(FoodItem item) {
-		HSSFRow row = writeItemInfo(item);
+		Row row = writeItemInfo(item);
 		if(item.getWeightPerItem() != -5.0){
-			row.createCell(ExcelReader.READ_WEIGHT_PER_UNIT).setCellValue(item.getWeightPerItem());
+			row.createCell(columns.readWeightPerUnit).setCellValue(item.getWeightPerItem());
 		}
-		row.createCell(ExcelReader.READ_WEIGHT_UNIT).setCellValue(item.getWeightUnit());
+		row.createCell(columns.readWeightUnit).setCellValue(item.getWeightUnit());
 		for(int z = 0; z< item.numCategories(); z++){
-			row.createCell(ExcelReader.READ_FAO+z).setCellValue(item.getFAOCategories()[z]);
+			row.createCell(columns.readFao+z).setCellValue(item.getFAOCategory(z));
 		}
 		writeHistoricalInfo(item,row);
 		
@@ -252,25 +481,57 @@ public class ExcelWriter {
 	 * @param excelReader for resources
 	 */
 	private void writeToCalculated(FoodItem item){
-		HSSFRow row = writeItemInfo(item);
-		FoodItem currentItem = reader.getItem(item.identifier());
-		row.createCell(ExcelReader.QUANTITY).setCellValue(item.getQuantity());//Set the Cell Quantity
-		row.createCell(ExcelReader.COST).setCellValue(item.getCost());//Set the Cell Costs
+		writeToCalculated(item, reader.getItem(item.key()));
+	}
+	
+	private void writeToCalculated(FoodItem item, FoodItem currentItem){
+		boolean approximate = false;
+		if(currentItem == null && APPROXIMATE_MATCHING){
+			currentItem = approximateMatch(item);
+			approximate = currentItem != null;
+		}
+		Row row = writeItemInfo(item);
+		row.createCell(columns.quantity).setCellValue(item.getQuantity());//Set the Cell Quantity
+		row.createCell(columns.cost).setCellValue(item.getCost());//Set the Cell Costs
 		if(currentItem != null){
 			if(currentItem.getWeightPerItem() != -5.0){
-				row.createCell(ExcelReader.WRITE_WEIGHT_PER_UNIT).setCellValue(currentItem.getWeightPerItem());
+				row.createCell(columns.writeWeightPerUnit).setCellValue(currentItem.getWeightPerItem());
 			}	
-			row.createCell(ExcelReader.WRITE_WEIGHT_UNIT).setCellValue(currentItem.getWeightUnit());
+			row.createCell(columns.writeWeightUnit).setCellValue(currentItem.getWeightUnit());
 			for(int z = 0; z< currentItem.numCategories(); z++){
-				row.createCell(ExcelReader.WRITE_FAO+z).setCellValue(currentItem.getFAOCategories()[z]);
+				row.createCell(columns.writeFao+z).setCellValue(currentItem.getFAOCategory(z));
+			}
+			if(approximate){
+				//Flagged for review, and not a purchase of the matched item, so its historical flag is left alone
+				row.createCell(columns.noteColumn()).setCellValue("Approximate match: " + currentItem.getItemName());
+			} else{
+				updateHistorical(currentItem);
 			}
-			updateHistorical(currentItem);
 		}
 	} 
 	
+	/**
+	 * Look up a purchase that has no exact match by approximate name, and report the match used.
+	 * @param item purchased item
+	 * @return the closest categorized item, or null
+	 */
+	private FoodItem approximateMatch(FoodItem item){
+		if(names == null){
+			names = new NameIndex(reader.currentData.values());
+		}
+		NameIndex.Match match = names.find(item);
+		if(match == null){
+			return null;
+		}
+		approximateMatches++;
+		user.out("Matched \"" + item.getItemName() + "\" to \"" + match.item.getItemName() + "\" (" + match.item.getVendor()
+				+ ", " + match.edits + " edits)");
+		return match.item;
+	}
+	
 	private void updateHistorical(FoodItem currentItem) {
 		if(ExcelReader.HISTORICAL_DATA && this.updateHistorical){
-			this.dataSheet.getRow(currentItem.getRowNum()).createCell(this.historicalCol).setCellValue(ExcelReader.HISTORICAL_TRUE);
+			setDataCell(currentItem.getRowNum(), this.historicalCol, ExcelReader.HISTORICAL_TRUE);
 		}
 		
 	}
@@ -280,12 +541,12 @@ public class ExcelWriter {
 	 * @param item Food Item object
 	 * @return the current Row
 	 */
-	private HSSFRow writeItemInfo(FoodItem item) {
-		HSSFRow row = writeSheet.createRow(inputRow);
+	private Row writeItemInfo(FoodItem item) {
+		Row row = writeSheet.createRow(inputRow);
 		this.inputRow++;
-		row.createCell(ExcelReader.ITEM_NAME).setCellValue(item.getItemName()); //Add the Item Name
-		row.createCell(ExcelReader.RCV_UNIT).setCellValue(item.getReceiveUnit());
-		row.createCell(ExcelReader.VENDOR).setCellValue(item.getVendor());//Add The Vendor
+		row.createCell(columns.itemName).setCellValue(item.getItemName()); //Add the Item Name
+		row.createCell(columns.rcvUnit).setCellValue(item.getReceiveUnit());
+		row.createCell(columns.vendor).setCellValue(item.getVendor());//Add The Vendor
 		return row;
 	}
 	
@@ -299,19 +560,19 @@ public class ExcelWriter {
 		return "DataSheet " + user.user.substring(0, 4) + " "+ dateFormat.format(date);
 	}
 	
-	private void makeHeaderRow(HSSFSheet sheet) {
+	private void makeHeaderRow(Sheet sheet) {
 		if(reader.header == null){
-			HSSFRow row = sheet.createRow(ExcelReader.HEADER_ROW);
-			row.createCell(ExcelReader.ITEM_NAME).setCellValue("Item Name");
-			row.createCell(ExcelReader.RCV_UNIT).setCellValue("Received Unit");
-			row.createCell(ExcelReader.VENDOR).setCellValue("Vendor");
-			for(int i=0; i<4;i++){
-				row.createCell(ExcelReader.READ_FAO+i).setCellValue("FAO " + i);
+			Row row = sheet.createRow(ExcelReader.HEADER_ROW);
+			row.createCell(columns.itemName).setCellValue("Item Name");
+			row.createCell(columns.rcvUnit).setCellValue("Received Unit");
+			row.createCell(columns.vendor).setCellValue("Vendor");
+			for(int i=0; i<ColumnSchema.FAO_COLUMNS;i++){
+				row.createCell(columns.readFao+i).setCellValue("FAO " + i);
 			}
-			row.createCell(ExcelReader.READ_WEIGHT_PER_UNIT).setCellValue("Weight Per Unit");
-			row.createCell(ExcelReader.READ_WEIGHT_UNIT).setCellValue("Unit Weight");
+			row.createCell(columns.readWeightPerUnit).setCellValue("Weight Per Unit");
+			row.createCell(columns.readWeightUnit).setCellValue("Unit Weight");
 		} else{
-			HSSFRow row = sheet.createRow(ExcelReader.HEADER_ROW);
+			Row row = sheet.createRow(ExcelReader.HEADER_ROW);
 			for(int i =0; i<reader.header.length;i++){
 				row.createCell(i).setCellValue(reader.header[i]);
 			}
@@ -322,17 +583,14 @@ public class ExcelWriter {
 	 * @param item currentItem
 	 * @param row currentRow
 	 */
-	private void writeHistoricalInfo(FoodItem item, HSSFRow row){
-		HashMap<String,Boolean> historical = item.getHistorical();
-		if(historical != null){
-			Set<String> keys = historical.keySet();
-			for(String key:keys){
-				if(historical.get(key)!= null){
-					if(historical.get(key)){
-						for(int i = ExcelReader.READ_WEIGHT_UNIT; i<reader.header.length;i++){
-							if(reader.header[i].equals(key)){
-								row.createCell(i).setCellValue(ExcelReader.HISTORICAL_TRUE);
-		}	}	}	}	}	}
+	private void writeHistoricalInfo(FoodItem item, Row row){
+		if(item.hasHistoricalData()){
+			for(int i = columns.readWeightUnit; i<reader.header.length;i++){
+				if(item.itemPartOfFY(reader.fiscalYears.bitOfColumn(i))){
+					row.createCell(i).setCellValue(ExcelReader.HISTORICAL_TRUE);
+				}
+			}
+		}
 	}
 	
 	/**
@@ -343,37 +601,11 @@ public class ExcelWriter {
 	 * @throws IOException
 	 */
 	protected void addMeta(String tabName, File sourceFile) throws IOException {
-		HSSFSheet meta = dataBook.getSheetAt(0);
-		HSSFCell lineNumCell =  meta.getRow(0).getCell(1);
-		int currentRow = 0;
-		if(lineNumCell.getCellType() == HSSFCell.CELL_TYPE_STRING){
-			currentRow = Integer.parseInt(lineNumCell.getStringCellValue());
-		} else{
-			currentRow = Integer.parseInt(String.valueOf(meta.getRow(0).getCell(1).getNumericCellValue()).split("\\.")[0]);
-		}
-		HSSFRow row1 = meta.createRow(currentRow);
-		row1.createCell(1).setCellValue(meta.getWorkbook().getNumberOfSheets()-1);
-		row1.createCell(2).setCellValue("@Source File Added");
-		if(sourceFile !=null){
-			row1.createCell(3).setCellValue(sourceFile.getName());
-		}else{
-			row1.createCell(3).setCellValue("No file: Data Cleaning.");
-		}
-		HSSFRow row2 = meta.createRow(currentRow +1);
-		row2.createCell(1).setCellValue("-");
-		row2.createCell(2).setCellValue("@Source File Author");
-		row2.createCell(3).setCellValue(user.user);
-		HSSFRow row3 = meta.createRow(currentRow +2);
-		row3.createCell(1).setCellValue("-");
-		row3.createCell(2).setCellValue("@Date Created");
+		MetaIndex meta = new MetaIndex(dataBook.getSheetAt(0));
 		DateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy");
-		Date date = new Date();
-		row3.createCell(3).setCellValue(dateFormat.format(date));
-		HSSFRow row4 = meta.createRow(currentRow +3);
-		row4.createCell(1).setCellValue("-");
-		row4.createCell(2).setCellValue("@Tab Name");
-		row4.createCell(3).setCellValue(tabName);
-		lineNumCell.setCellValue(currentRow + 4);
+		meta.add(dataBook.getNumberOfSheets()-1, sourceFile == null ? null : sourceFile.getName(), user.user,
+				dateFormat.format(new Date()), tabName);
+		meta.write();
 	}
 	
 	/**
@@ -382,21 +614,149 @@ public class ExcelWriter {
 	 * @throws IOException
 	 */
 	public void save() throws FileNotFoundException, IOException {
-		saveData();
-		if(this.setting !=ExcelWriter.CLEAN_DATA && this.setting != ExcelWriter.REMOVE){
+		try{
+			JobExecutor.saving();
+		} catch(CancellationException e){
+			discard();
+			throw e;
+		}
+		if(approximateMatches > 0){
+			user.out(approximateMatches + " items were matched by approximate name.");
+		}
+		if(!dataDeferred){
+			saveData();
+		}
+		if(this.setting == ExcelWriter.STREAMED_CATEGORIZATION){
+			saveStreamed();
+			openSaved();
+		} else if(this.setting !=ExcelWriter.CLEAN_DATA && this.setting != ExcelWriter.REMOVE){
 			writeBook.write(new FileOutputStream(saveFile));
+			openSaved();
+		}
+	}
+
+	/**
+	 * Open the saved file with the OS, unless the program runs headless.
+	 * @throws IOException
+	 */
+	private void openSaved() throws IOException{
+		if(user.headless){
+			user.out("Saved " + saveFile.getPath());
+		} else{
 			user.out("Saved work and opening...");
 			Desktop.getDesktop().open(saveFile);
-			user.out("Operation completed.");
 		}
+		user.out("Operation completed.");
 	}
 
+	/**
+	 * Write the streamed .xlsx output and delete its temporary files.
+	 * @throws IOException
+	 */
+	private void saveStreamed() throws IOException{
+		OutputStream out = new FileOutputStream(saveFile);
+		try{
+			writeBook.write(out);
+		} finally{
+			out.close();
+			((SXSSFWorkbook) writeBook).dispose();
+		}
+	}
+
+	/**
+	 * Drop everything written so far without saving (i.e., when a job is cancelled).
+	 */
+	public void discard(){
+		if(writeBook instanceof SXSSFWorkbook){
+			((SXSSFWorkbook) writeBook).dispose();
+		}
+	}
+	
+	/**
+	 * Save the changes to data.xls.
+	 * Categorizations only append their changes to the journal (unless it has grown past its compaction size).
+	 * Every other setting writes the whole workbook, which also compacts the journal.
+	 * @throws IOException
+	 */
 	private void saveData() throws FileNotFoundException, IOException {
 		if(setting != ExcelWriter.CALCULATION){
-			File file = user.utils.getFile("data");
-			dataBook.write(new FileOutputStream(file));
+			if(JOURNAL_DATA && isCategorization()){
+				int changes = journal.commit();
+				user.out("Saved " + changes + " changes to the data.xls journal.");
+				if(journal.length() <= DataJournal.COMPACT_SIZE){
+					return;
+				}
+				user.out("Compacting the data.xls journal...");
+				dataBook = reader.loadBook("data"); //Copy with the journal applied, in place of the shared copy
+				dataShared = false;
+			}
+			writeData(user, dataBook);
+			journal.clear();
 			user.out("Saved changes to data.xls");
 		}
 	}
+	
+	/**
+	 * Save the data.xls changes recorded by several categorizations (see CategorizeQueue) in one write: one
+	 * journal batch, followed by one write of data.xls if the journal is off or has grown past its compaction size.
+	 * @param user user
+	 * @param changes journal the categorizations recorded their changes in
+	 * @throws IOException
+	 * @dateEdited 10-18-2026
+	 */
+	protected static void saveData(User user, DataJournal changes) throws IOException{
+		JobExecutor.saving();
+		int saved = changes.commit();
+		user.out("Saved " + saved + " changes to the data.xls journal.");
+		if(JOURNAL_DATA && changes.length() <= DataJournal.COMPACT_SIZE){
+			return;
+		}
+		user.out("Writing the changes into data.xls...");
+		writeData(user, user.resources.loadBook("data"));
+		changes.clear();
+		user.out("Saved changes to data.xls");
+	}
+	
+	/**
+	 * Write the journal of data.xls into data.xls and delete it.
+	 * @param user user
+	 * @dateEdited 10-18-2026
+	 */
+	public static void compactData(User user){
+		JobExecutor.saving();
+		try{
+			DataJournal journal = new DataJournal(user.utils.getFile("data"));
+			if(journal.size() == 0){
+				user.out("No journal changes to compact.");
+				return;
+			}
+			long length = journal.length();
+			writeData(user, user.resources.loadBook("data"));
+			journal.clear();
+			user.log.newEntry(user.user, "compacted the data.xls journal (" + length + " bytes)");
+			user.out("Compacted the data.xls journal.");
+		} catch(Exception e){
+			user.utils.exceptionHandler(e, "Unable to compact the data.xls journal");
+		}
+	}
+	
+	/**
+	 * Write data.xls to a temporary file and move it over data.xls, so data.xls is never left half written.
+	 */
+	private static void writeData(User user, HSSFWorkbook book) throws IOException{
+		File file = user.utils.getFile("data");
+		File temp = new File(file.getPath() + ".tmp");
+		OutputStream out = new FileOutputStream(temp);
+		try{
+			book.write(out);
+		} finally{
+			out.close();
+		}
+		try{
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally{
+			user.resources.workbooks.invalidate(file);
+		}
+	}
 
 }
@@ -0,0 +1,126 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Index of the fiscal year (historical data) columns of the data.xls header.
+ * Each fiscal year is given a bit (0-63), which FoodItems use for their historical bitmasks.
+ * Also keeps one bitmap per fiscal year of the registered items that were purchased that year,
+ * so "all items from FY X" does not need to look at every item.
+ * @dateEdited 10-18-2026
+ */
+class FiscalYearIndex {
+	protected static final int MAX_YEARS = 64;
+
+	private HashMap<String,Integer> bits; //fiscal year name -> bit
+	private ArrayList<String> names; //bit -> fiscal year name
+	private int[] columnBits; //header column -> bit (-1 if the column is not a fiscal year)
+
+	private ArrayList<FoodItem> items; //registered items by ordinal (null once replaced)
+	private BitSet[] purchased; //bit -> ordinals of the items purchased that year
+
+	/**
+	 * Build the index from the header row of data.xls.
+	 * Every column from firstYear on is a fiscal year.
+	 * @param header header row (may be null)
+	 * @param firstYear first fiscal year column (the one after the weight unit of data.xls)
+	 */
+	FiscalYearIndex(String[] header, int firstYear){
+		bits = new HashMap<String,Integer>();
+		names = new ArrayList<String>();
+		items = new ArrayList<FoodItem>();
+		columnBits = new int[header == null ? 0 : header.length];
+		if(header != null){
+			for(int i = firstYear; i<header.length; i++){
+				if(!bits.containsKey(header[i])){
+					if(names.size() == MAX_YEARS){
+						throw new IllegalArgumentException("data.xls has more than " + MAX_YEARS + " fiscal year columns.");
+					}
+					bits.put(header[i], names.size());
+					names.add(header[i]);
+				}
+			}
+			for(int i = 0; i<header.length; i++){
+				columnBits[i] = bit(header[i]);
+			}
+		}
+		purchased = new BitSet[names.size()];
+		for(int i = 0; i<purchased.length; i++){
+			purchased[i] = new BitSet();
+		}
+	}
+
+	/**
+	 * @param fiscalYear name of the fiscal year column (i.e., FY17)
+	 * @return bit of the fiscal year, or -1 if it is not in the header
+	 */
+	protected int bit(String fiscalYear){
+		Integer bit = bits.get(fiscalYear);
+		return bit == null ? -1 : bit;
+	}
+
+	/**
+	 * @param column header column number
+	 * @return bit of the fiscal year in that column, or -1 if the column is not a fiscal year
+	 */
+	protected int bitOfColumn(int column){
+		if(column < 0 || column >= columnBits.length){
+			return -1;
+		}
+		return columnBits[column];
+	}
+
+	/**
+	 * @param bit fiscal year bit
+	 * @return name of the fiscal year
+	 */
+	protected String name(int bit){
+		return names.get(bit);
+	}
+
+	protected int size(){
+		return names.size();
+	}
+
+	/**
+	 * Add an item to the per year bitmaps. Its historical data must already be complete.
+	 * @param item new item
+	 * @param previousItem item it replaces (or null)
+	 */
+	protected void register(FoodItem item, FoodItem previousItem){
+		if(previousItem != null && previousItem.ordinal >= 0 && previousItem.ordinal < items.size()
+				&& items.get(previousItem.ordinal) == previousItem){
+			for(BitSet year : purchased){
+				year.clear(previousItem.ordinal);
+			}
+			items.set(previousItem.ordinal, null);
+		}
+		item.ordinal = items.size();
+		items.add(item);
+		long years = item.getHistoricalMask();
+		while(years != 0){
+			int bit = Long.numberOfTrailingZeros(years);
+			purchased[bit].set(item.ordinal);
+			years &= years - 1;
+		}
+	}
+
+	/**
+	 * Get every registered item that was purchased in the given fiscal year.
+	 * @param fiscalYear name of the fiscal year column
+	 * @return items purchased that year, in the order they were registered
+	 */
+	protected ArrayList<FoodItem> itemsFromFY(String fiscalYear){
+		ArrayList<FoodItem> fromFY = new ArrayList<FoodItem>();
+		int bit = bit(fiscalYear);
+		if(bit >= 0){
+			BitSet year = purchased[bit];
+			for(int i = year.nextSetBit(0); i >= 0; i = year.nextSetBit(i+1)){
+				fromFY.add(items.get(i));
+			}
+		}
+		return fromFY;
+	}
+}
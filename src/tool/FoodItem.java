@@ -1,25 +1,32 @@
 package tool;
 
 import java.util.HashMap;
-import java.util.Set;
 
 /**
  * This class is designed to keep track of each food item.
+ * Vendors, units and FAO categories are stored as codes from a shared SymbolTable, and the
+ * historical data as bitmasks over the fiscal years of a FiscalYearIndex, since they repeat across thousands of items.
  * @author Steven Fitzpatrick
  * @dateEdited 8-31-2015
  * @version 1.2
  */
 public class FoodItem {
+	protected static final SymbolTable SYMBOLS = new SymbolTable(); //vendors, units and FAO categories
+	
 	private String name;
-	private String vendor;
-	private String receiveUnit;
+	private ItemKey key; //normalized name, vendor and receive unit
+	private int vendor;
+	private int receiveUnit;
 	
-	private String[] faoCategories;
+	private int[] faoCategories;
 	private double weightPerUnit; //weight per receive unit
-	private String weightUnit; //lbs, grams,...
+	private int weightUnit; //lbs, grams,...
 	private int numCategories;
-	private HashMap<String,Boolean> historicalData;
+	private FiscalYearIndex fiscalYears; //null if historical data is not initialized
+	private long historicalYears; //fiscal year bits with an entry
+	private long historicalData; //fiscal year bits the item was purchased
 	private int rowNum;
+	int ordinal = -1; //position in the FiscalYearIndex
 	
 	private double cost;
 	private double quantity;
@@ -35,11 +42,11 @@ public class FoodItem {
 	 */
 	public FoodItem(String itemName, String receiveUnit, String vendor, String[] faoCategories, double weightPerUnit, String weightUnit){
 		this.name = itemName;
-		this.vendor = vendor;
-		this.faoCategories = faoCategories;
+		this.vendor = SYMBOLS.code(vendor);
 		this.weightPerUnit = weightPerUnit;
-		this.weightUnit = weightUnit;
-		this.receiveUnit = receiveUnit;
+		this.weightUnit = SYMBOLS.code(weightUnit);
+		this.receiveUnit = SYMBOLS.code(receiveUnit);
+		this.key = new ItemKey(itemName, vendor, receiveUnit);
 		numCategories = 0;
 		if(faoCategories[0] != null){
 			for(int i =0; i<4;i++){
@@ -53,6 +60,10 @@ public class FoodItem {
 				}
 			}
 		}
+		this.faoCategories = new int[faoCategories.length];
+		for(int i = 0; i<faoCategories.length; i++){
+			this.faoCategories[i] = SYMBOLS.code(faoCategories[i]);
+		}
 	}
 	
 	/**
@@ -66,29 +77,111 @@ public class FoodItem {
 	 */
 	public FoodItem(String itemName, String receiveUnit, String vendor, double cost, double quantity){
 		this.name = itemName;
-		this.vendor = vendor;
-		this.receiveUnit = receiveUnit;
+		this.vendor = SYMBOLS.code(vendor);
+		this.receiveUnit = SYMBOLS.code(receiveUnit);
+		this.key = new ItemKey(itemName, vendor, receiveUnit);
+		this.weightUnit = SymbolTable.NONE;
 		this.quantity=quantity;
 		this.cost=cost;
 	}
 	
-	public void addHistoricalData(HashMap<String,Boolean> historicalData, int rowNum){
-		this.historicalData=historicalData;
+	/**
+	 * Take over the historical data (and data.xls row) of a previous version of this item.
+	 * @param previousItem item being replaced
+	 */
+	public void addHistoricalData(FoodItem previousItem){
+		this.fiscalYears = previousItem.fiscalYears;
+		this.historicalYears = previousItem.historicalYears;
+		this.historicalData = previousItem.historicalData;
+		this.rowNum = previousItem.rowNum;
+	}
+	
+	/**
+	 * Set the historical data of this item.
+	 * @param fiscalYears index of the fiscal year bits
+	 * @param historicalYears bits of the fiscal years with an entry for this item
+	 * @param historicalData bits of the fiscal years the item was purchased
+	 * @param rowNum row of the item in data.xls
+	 */
+	public void addHistoricalData(FiscalYearIndex fiscalYears, long historicalYears, long historicalData, int rowNum){
+		this.fiscalYears = fiscalYears;
+		this.historicalYears = historicalYears;
+		this.historicalData = historicalData;
 		this.rowNum = rowNum;
 	}
 	
+	/**
+	 * Start (empty) historical data for this item.
+	 * @param fiscalYears index of the fiscal year bits
+	 * @param rowNum row of the item in data.xls
+	 */
+	public void initHistoricalData(FiscalYearIndex fiscalYears, int rowNum){
+		addHistoricalData(fiscalYears, 0L, 0L, rowNum);
+	}
+	
+	/**
+	 * Set whether this item was purchased in a fiscal year.
+	 * @param bit fiscal year bit from the FiscalYearIndex
+	 * @param partOfFY true if the item was purchased that year
+	 */
+	public void setHistorical(int bit, boolean partOfFY){
+		long mask = 1L << bit;
+		historicalYears |= mask;
+		if(partOfFY){
+			historicalData |= mask;
+		} else{
+			historicalData &= ~mask;
+		}
+	}
+	
+	public boolean hasHistoricalData(){
+		return fiscalYears != null;
+	}
+	
+	/**
+	 * @return bits of the fiscal years this item was purchased (0 if historical data is not initialized)
+	 */
+	public long getHistoricalMask(){
+		return historicalData;
+	}
+	
+	/**
+	 * @return bits of the fiscal years with an entry for this item (purchased or not)
+	 */
+	public long getHistoricalYearsMask(){
+		return historicalYears;
+	}
+	
+	/**
+	 * @return number of fiscal years with an entry for this item (purchased or not)
+	 */
+	public int numHistoricalYears(){
+		return Long.bitCount(historicalYears);
+	}
+	
 	public int getRowNum(){
 		return this.rowNum;
 	}
 	
+	/**
+	 * Get the key used to look this item up in currentData.
+	 * @return key of the name, vendor and receive unit
+	 */
+	public ItemKey key(){
+		return key;
+	}
+	
+	/**
+	 * Get the identifier of this item (i.e., "chix brst (feesers) cs"). For display, use key() for lookups.
+	 * @return identifier String
+	 */
 	public String identifier(){
-		String str = name + " (" + vendor + ") " + receiveUnit;
-		return str.toLowerCase().trim();
+		return key.toString();
 	}
 	
 	@Override
 	public String toString(){
-		return name + ": " + vendor + " (" + numCategories + ")";
+		return name + ": " + getVendor() + " (" + numCategories + ")";
 	}
 	
 	/**
@@ -105,11 +198,11 @@ public class FoodItem {
 			/*
 			 * Check if this the basic info of a product: name, vendor, and the receive unit
 			 */
-			if(item.getItemName().equals(this.getItemName())&&item.getVendor().equals(this.getVendor())&&item.getReceiveUnit().equals(this.getReceiveUnit())){
+			if(item.getItemName().equals(this.getItemName())&&item.vendor == this.vendor&&item.receiveUnit == this.receiveUnit){
 				/*
 				 * Check the categorization particulars
 				 */
-				if((item.numCategories() == this.numCategories())&&item.getWeightUnit().equals(this.getWeightUnit())&&item.getWeightPerItem()==this.getWeightPerItem()){
+				if((item.numCategories() == this.numCategories())&&item.weightUnit == this.weightUnit&&item.getWeightPerItem()==this.getWeightPerItem()){
 					return true;
 				}
 			}
@@ -130,7 +223,7 @@ public class FoodItem {
 			/*
 			 * Check the categorization particulars
 			 */
-			if((item.numCategories() == this.numCategories())&&item.getWeightUnit().equals(this.getWeightUnit())){
+			if((item.numCategories() == this.numCategories())&&item.weightUnit == this.weightUnit){
 				return true;
 			}
 		}
@@ -138,34 +231,45 @@ public class FoodItem {
 	}
 	
 	public int getFrequencyOfItem(){
-		if(historicalData != null){
-			int frequency = 0;
-			Set<String> keys = historicalData.keySet();
-			for(String key: keys){
-				if(historicalData.get(key)){
-					frequency++;
-				}
-			}
-			return frequency;
+		if(fiscalYears != null){
+			return Long.bitCount(historicalData);
 		} else{
 			throw new IllegalArgumentException("Historical Data not initialized for item: " + this.getItemName() + ".");
 		}
 	}
 	
 	public boolean itemPartOfFY(String fiscalYear){
-		if(historicalData != null){
-			if(historicalData.get(fiscalYear) == null){
-				return false;
-			} else{
-				return historicalData.get(fiscalYear);
-			}
+		if(fiscalYears != null){
+			return itemPartOfFY(fiscalYears.bit(fiscalYear));
 		} else{
 			throw new IllegalArgumentException("Historical Data not initialized for item: " + this.getItemName() + ".");
 		}
 	}
 	
+	/**
+	 * @param bit fiscal year bit from the FiscalYearIndex (negative for an unknown year)
+	 * @return true if the item was purchased in that fiscal year
+	 */
+	public boolean itemPartOfFY(int bit){
+		return bit >= 0 && (historicalData & (1L << bit)) != 0;
+	}
+	
+	/**
+	 * Get the historical data as a map of fiscal year to whether the item was purchased that year.
+	 * Builds a new map on every call.
+	 * @return map of the historical data, or null if it is not initialized
+	 */
 	public HashMap<String,Boolean> getHistorical(){
-		return this.historicalData;
+		if(fiscalYears == null){
+			return null;
+		}
+		HashMap<String,Boolean> historical = new HashMap<String,Boolean>();
+		for(int bit = 0; bit<fiscalYears.size(); bit++){
+			if((historicalYears & (1L << bit)) != 0){
+				historical.put(fiscalYears.name(bit), itemPartOfFY(bit));
+			}
+		}
+		return historical;
 	}
 	
 	/**
@@ -175,7 +279,7 @@ public class FoodItem {
 	public boolean uncategorized(){
 		return getWeightPerItem()==0 
 				&& !getReceiveUnit().toLowerCase().equals("dollars")//Ensure that it is Not dollars
-				&& !getFAOCategories()[0].equals("non-food related");//Ensure that it is not a non-food product
+				&& !getFAOCategory(0).equals("non-food related");//Ensure that it is not a non-food product
 	}
 	/*
 	 * General Identifiers For an Item...
@@ -193,7 +297,7 @@ public class FoodItem {
 	 * @return vendor
 	 */
 	public String getVendor(){
-		return vendor;
+		return SYMBOLS.symbol(vendor);
 	}
 	
 	/**
@@ -201,7 +305,7 @@ public class FoodItem {
 	 * @return rcvUnit
 	 */
 	public String getReceiveUnit(){
-		return receiveUnit;
+		return SYMBOLS.symbol(receiveUnit);
 	}
 	
 	//Identifiers for CATEGORIZED (Template)
@@ -210,11 +314,27 @@ public class FoodItem {
 	 * @return arr of FAO Categories
 	 */
 	public String[] getFAOCategories(){
-		return faoCategories;
+		if(faoCategories == null){
+			return null;
+		}
+		String[] faos = new String[faoCategories.length];
+		for(int i = 0; i<faos.length; i++){
+			faos[i] = SYMBOLS.symbol(faoCategories[i]);
+		}
+		return faos;
+	}
+	
+	/**
+	 * Get a single FAO Food Category without building the whole list.
+	 * @param index category number (0-3)
+	 * @return the FAO Category
+	 */
+	public String getFAOCategory(int index){
+		return SYMBOLS.symbol(faoCategories[index]);
 	}
 	
 	public String getWeightUnit(){
-		return weightUnit;
+		return SYMBOLS.symbol(weightUnit);
 	}
 	
 	public int numCategories(){
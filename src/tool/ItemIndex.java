@@ -0,0 +1,153 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index of the FoodItems in currentData by ItemKey.
+ * Point lookups go through an open addressing hash table (linear probing).
+ * Sorted iteration (for cleaning, printing...) uses a sorted list that is built when it is
+ * first needed and thrown away on the next write.
+ * Lookups are safe from several threads as long as nothing is written at the same time.
+ * @dateEdited 10-18-2026
+ */
+public class ItemIndex {
+	private static final int MIN_CAPACITY = 16;
+	protected static final Comparator<FoodItem> BY_KEY = new Comparator<FoodItem>(){
+		@Override
+		public int compare(FoodItem item, FoodItem other) {
+			return item.key().compareTo(other.key());
+		}
+	};
+
+	private ItemKey[] keys;
+	private FoodItem[] items;
+	private int size;
+	private volatile List<FoodItem> sorted; //null when it needs to be rebuilt
+
+	public ItemIndex(){
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize number of items expected, so the table does not need to grow
+	 */
+	public ItemIndex(int expectedSize){
+		int capacity = MIN_CAPACITY;
+		while(capacity < expectedSize*2){
+			capacity <<= 1;
+		}
+		keys = new ItemKey[capacity];
+		items = new FoodItem[capacity];
+	}
+
+	/**
+	 * @param key key of the item
+	 * @return the item, or null if there is no item with this key
+	 */
+	public FoodItem get(ItemKey key){
+		int mask = keys.length - 1;
+		for(int slot = spread(key.hashCode()) & mask; keys[slot] != null; slot = (slot + 1) & mask){
+			if(keys[slot].equals(key)){
+				return items[slot];
+			}
+		}
+		return null;
+	}
+
+	public boolean containsKey(ItemKey key){
+		return get(key) != null;
+	}
+
+	/**
+	 * Add an item, replacing any item with the same key.
+	 * @param key key of the item
+	 * @param item item to add
+	 * @return the item that was replaced, or null
+	 */
+	public FoodItem put(ItemKey key, FoodItem item){
+		if((size + 1)*2 > keys.length){
+			resize(keys.length*2);
+		}
+		sorted = null;
+		int mask = keys.length - 1;
+		int slot = spread(key.hashCode()) & mask;
+		while(keys[slot] != null){
+			if(keys[slot].equals(key)){
+				FoodItem previous = items[slot];
+				items[slot] = item;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		items[slot] = item;
+		size++;
+		return null;
+	}
+
+	public int size(){
+		return size;
+	}
+
+	public void clear(){
+		Arrays.fill(keys, null);
+		Arrays.fill(items, null);
+		size = 0;
+		sorted = null;
+	}
+
+	/**
+	 * Get all of the items sorted by key (the same order as a TreeMap of identifiers).
+	 * @return read only list of the items
+	 */
+	public List<FoodItem> values(){
+		List<FoodItem> current = sorted;
+		if(current == null){
+			synchronized(this){
+				current = sorted;
+				if(current == null){
+					ArrayList<FoodItem> list = new ArrayList<FoodItem>(size);
+					for(FoodItem item : items){
+						if(item != null){
+							list.add(item);
+						}
+					}
+					Collections.sort(list, BY_KEY);
+					current = Collections.unmodifiableList(list);
+					sorted = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private void resize(int capacity){
+		ItemKey[] oldKeys = keys;
+		FoodItem[] oldItems = items;
+		keys = new ItemKey[capacity];
+		items = new FoodItem[capacity];
+		int mask = capacity - 1;
+		for(int i = 0; i<oldKeys.length; i++){
+			if(oldKeys[i] != null){
+				int slot = spread(oldKeys[i].hashCode()) & mask;
+				while(keys[slot] != null){
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				items[slot] = oldItems[i];
+			}
+		}
+	}
+
+	/**
+	 * Mix the high bits of the hash into the low bits used for the slot.
+	 */
+	private static int spread(int hash){
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,130 @@
+package tool;
+
+/**
+ * Lookup key of a FoodItem: item name, vendor and receive unit.
+ * Normalized once when it is made (lower case, no leading/trailing spaces), with its hash cached,
+ * so lookups in currentData do not build the identifier String.
+ * Keys sort exactly like the identifier Strings "name (vendor) receiveUnit" they replace.
+ * @dateEdited 10-18-2026
+ */
+public class ItemKey implements Comparable<ItemKey> {
+	private static final String VENDOR_OPEN = " (";
+	private static final String VENDOR_CLOSE = ") ";
+
+	private String name;
+	private int vendor; //code in FoodItem.SYMBOLS of the lower case vendor
+	private int receiveUnit; //code in FoodItem.SYMBOLS of the lower case receive unit
+	private int hash;
+
+	/**
+	 * @param name item name
+	 * @param vendor vendor
+	 * @param receiveUnit receive unit
+	 */
+	public ItemKey(String name, String vendor, String receiveUnit){
+		this.name = trimLeading(String.valueOf(name).toLowerCase());
+		this.vendor = FoodItem.SYMBOLS.code(String.valueOf(vendor).toLowerCase());
+		this.receiveUnit = FoodItem.SYMBOLS.code(trimTrailing(String.valueOf(receiveUnit).toLowerCase()));
+		this.hash = (this.name.hashCode()*31 + this.vendor)*31 + this.receiveUnit;
+	}
+
+	@Override
+	public int hashCode(){
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj){
+		if(this == obj){
+			return true;
+		}
+		if(obj instanceof ItemKey){
+			ItemKey key = (ItemKey) obj;
+			return hash == key.hash && vendor == key.vendor && receiveUnit == key.receiveUnit && name.equals(key.name);
+		}
+		return false;
+	}
+
+	/**
+	 * Compare as the identifier Strings would, without building them.
+	 * Keys with the same identifier but different fields are ordered by their fields.
+	 */
+	@Override
+	public int compareTo(ItemKey key){
+		if(this == key){
+			return 0;
+		}
+		String vendorName = FoodItem.SYMBOLS.symbol(vendor);
+		String unit = FoodItem.SYMBOLS.symbol(receiveUnit);
+		String otherVendor = FoodItem.SYMBOLS.symbol(key.vendor);
+		String otherUnit = FoodItem.SYMBOLS.symbol(key.receiveUnit);
+		int length = length(vendorName, unit);
+		int otherLength = key.length(otherVendor, otherUnit);
+		int limit = Math.min(length, otherLength);
+		for(int i = 0; i<limit; i++){
+			char c = charAt(i, vendorName, unit);
+			char d = key.charAt(i, otherVendor, otherUnit);
+			if(c != d){
+				return c - d;
+			}
+		}
+		if(length != otherLength){
+			return length - otherLength;
+		}
+		int compare = name.compareTo(key.name);
+		if(compare == 0){
+			compare = vendorName.compareTo(otherVendor);
+		}
+		return compare;
+	}
+
+	/**
+	 * The identifier String (i.e., "chix brst (feesers) cs"). Only for display.
+	 */
+	@Override
+	public String toString(){
+		return name + VENDOR_OPEN + FoodItem.SYMBOLS.symbol(vendor) + VENDOR_CLOSE + FoodItem.SYMBOLS.symbol(receiveUnit);
+	}
+
+	private int length(String vendorName, String unit){
+		return name.length() + VENDOR_OPEN.length() + vendorName.length() + VENDOR_CLOSE.length() + unit.length();
+	}
+
+	/**
+	 * Character of the identifier String at the given index.
+	 */
+	private char charAt(int index, String vendorName, String unit){
+		if(index < name.length()){
+			return name.charAt(index);
+		}
+		index -= name.length();
+		if(index < VENDOR_OPEN.length()){
+			return VENDOR_OPEN.charAt(index);
+		}
+		index -= VENDOR_OPEN.length();
+		if(index < vendorName.length()){
+			return vendorName.charAt(index);
+		}
+		index -= vendorName.length();
+		if(index < VENDOR_CLOSE.length()){
+			return VENDOR_CLOSE.charAt(index);
+		}
+		return unit.charAt(index - VENDOR_CLOSE.length());
+	}
+
+	private static String trimLeading(String str){
+		int start = 0;
+		while(start < str.length() && str.charAt(start) <= ' '){
+			start++;
+		}
+		return str.substring(start);
+	}
+
+	private static String trimTrailing(String str){
+		int end = str.length();
+		while(end > 0 && str.charAt(end-1) <= ' '){
+			end--;
+		}
+		return str.substring(0, end);
+	}
+}
@@ -0,0 +1,338 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the long GUI commands (categorizations, imports, cleaning...) as background jobs on a small worker pool,
+ * so the event dispatch thread is never blocked.
+ * Jobs that change currentData or data.xls are exclusive: they wait for every other job to finish, and no
+ * other job starts while they run. They also hold the data.xls lock (see DataLock), so they do not run at the
+ * same time as a tool.Batch run that uses data.xls. Read only jobs run side by side.
+ * Jobs report progress with JobExecutor.progress() and check for cancellation with JobExecutor.checkCancelled().
+ * Cancelling never interrupts a job's thread, which would close the files it has open: the job stops at its next
+ * checkCancelled(). Once a job calls JobExecutor.saving() it can no longer be cancelled.
+ * Listeners are told about every change on the event dispatch thread.
+ * @dateEdited 10-18-2026
+ */
+class JobExecutor {
+	protected static int WORKERS = 2;
+	private static final ThreadLocal<Job> CURRENT = new ThreadLocal<Job>(); //job run by this thread
+	private static final ThreadLocal<Job> HELPING = new ThreadLocal<Job>(); //job a pool thread works for (see help)
+
+	private User user;
+	private ThreadPoolExecutor pool;
+	private ReentrantReadWriteLock dataLock; //write lock for exclusive jobs, read lock for the others
+	private CopyOnWriteArrayList<Job> jobs;
+	private CopyOnWriteArrayList<Runnable> listeners;
+	private AtomicInteger ids;
+
+	/**
+	 * Work done by a job.
+	 */
+	protected interface Task {
+		void run() throws Exception;
+	}
+
+	JobExecutor(User user){
+		this.user = user;
+		final AtomicInteger threads = new AtomicInteger();
+		pool = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory(){
+					@Override
+					public Thread newThread(Runnable runnable) {
+						//Not a daemon: a job that is writing data.xls finishes before the program exits.
+						return new Thread(runnable, "job-worker-" + threads.incrementAndGet());
+					}
+				});
+		dataLock = new ReentrantReadWriteLock(true);
+		jobs = new CopyOnWriteArrayList<Job>();
+		listeners = new CopyOnWriteArrayList<Runnable>();
+		ids = new AtomicInteger();
+	}
+
+	/**
+	 * Submit a job.
+	 * @param name name shown in the job list
+	 * @param exclusive true if the job changes currentData or data.xls
+	 * @param task work to do
+	 * @return the queued job
+	 */
+	protected Job submit(String name, boolean exclusive, Task task){
+		Job job = new Job(ids.incrementAndGet(), name, exclusive, task);
+		jobs.add(job);
+		job.future = pool.submit(job);
+		user.out("Job " + job.id + " queued: " + name);
+		changed();
+		return job;
+	}
+
+	/**
+	 * @return every job submitted this session, oldest first
+	 */
+	protected List<Job> getJobs(){
+		return new ArrayList<Job>(jobs);
+	}
+
+	/**
+	 * Cancel a queued or running job. A running job stops at its next checkCancelled().
+	 * @param id job number
+	 * @return true if the job was found, had not finished and was not saving
+	 */
+	protected boolean cancel(int id){
+		for(Job job : jobs){
+			if(job.id == id){
+				return job.cancel();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param listener run on the event dispatch thread whenever a job is queued, starts, progresses or ends
+	 */
+	protected void addListener(Runnable listener){
+		listeners.add(listener);
+	}
+
+	/**
+	 * Cancel the jobs that have not started and stop the workers once the running jobs are done.
+	 */
+	protected void shutdown(){
+		for(Job job : jobs){
+			if(Job.QUEUED.equals(job.status)){
+				job.cancel();
+			}
+		}
+		pool.shutdown();
+	}
+
+	/**
+	 * Report the progress of the job run by this thread. Does nothing outside of a job.
+	 * @param done units of work done
+	 * @param total units of work in all
+	 */
+	protected static void progress(int done, int total){
+		Job job = CURRENT.get();
+		if(job != null && (done == total || done - job.done >= job.step(total))){
+			job.done = done;
+			job.total = total;
+			job.executor().changed();
+		}
+	}
+
+	/**
+	 * Stop the job run by this thread if it was cancelled. Does nothing outside of a job.
+	 * @throws CancellationException if the job was cancelled
+	 */
+	protected static void checkCancelled(){
+		Job job = CURRENT.get() == null ? HELPING.get() : CURRENT.get();
+		if(job != null && (job.cancelled || Thread.currentThread().isInterrupted())){
+			throw new CancellationException(job.name + " was cancelled.");
+		}
+	}
+
+	/**
+	 * Start the save phase of the job run by this thread: from here on it can no longer be cancelled, so what it
+	 * saves is never cut off halfway. Does nothing outside of a job, or on a thread that only helps one.
+	 * @throws CancellationException if the job was cancelled before its save phase
+	 */
+	protected static void saving(){
+		Job job = CURRENT.get();
+		if(job != null){
+			job.startSaving();
+		}
+	}
+
+	/**
+	 * @return the job run by this thread, or null outside of a job
+	 */
+	protected static Job current(){
+		return CURRENT.get();
+	}
+
+	/**
+	 * Make a thread of another pool work for a job (i.e., CategorizeQueue's threads): checkCancelled() stops it
+	 * when the job is cancelled, but its progress is not reported, since the job's own thread reports the
+	 * progress of the whole job.
+	 * @param job job to work for, or null once the work is done
+	 */
+	protected static void help(Job job){
+		if(job == null){
+			HELPING.remove();
+		} else{
+			HELPING.set(job);
+		}
+	}
+
+	private void changed(){
+		SwingUtilities.invokeLater(new Runnable(){
+			@Override
+			public void run() {
+				for(Runnable listener : listeners){
+					listener.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * A single background job.
+	 */
+	protected class Job implements Runnable {
+		protected static final String QUEUED = "Queued";
+		protected static final String RUNNING = "Running";
+		protected static final String DONE = "Done";
+		protected static final String FAILED = "Failed";
+		protected static final String CANCELLED = "Cancelled";
+
+		protected final int id;
+		protected final String name;
+		private boolean exclusive;
+		private Task task;
+		private Future<?> future;
+		private volatile boolean cancelled;
+		private boolean saving; //in the save phase (guarded by the job)
+		private volatile String status;
+		private volatile long started;
+		private volatile long finished;
+		private volatile int done;
+		private volatile int total;
+
+		private Job(int id, String name, boolean exclusive, Task task){
+			this.id = id;
+			this.name = name;
+			this.exclusive = exclusive;
+			this.task = task;
+			status = QUEUED;
+		}
+
+		@Override
+		public void run() {
+			if(cancelled){
+				return;
+			}
+			Lock lock = exclusive ? dataLock.writeLock() : dataLock.readLock();
+			try{
+				lock.lockInterruptibly();
+			} catch(InterruptedException e){
+				finish(CANCELLED);
+				return;
+			}
+			if(cancelled){ //Cancelled while waiting for the lock, and already finished
+				lock.unlock();
+				return;
+			}
+			DataLock fileLock = null;
+			try{
+				CURRENT.set(this);
+				started = System.currentTimeMillis();
+				status = RUNNING;
+				changed();
+				if(exclusive){
+					fileLock = DataLock.acquire(user, true);
+				}
+				checkCancelled();
+				task.run();
+				user.out("Job " + id + " finished: " + name + " (" + elapsedText() + ")");
+				finish(DONE);
+			} catch(CancellationException e){
+				user.out("Job " + id + " cancelled: " + name);
+				finish(CANCELLED);
+			} catch(Exception e){
+				user.utils.exceptionHandler(e, "Job " + id + " failed: " + name + " (" + e + ")");
+				finish(FAILED);
+			} finally{
+				if(fileLock != null){
+					fileLock.release();
+				}
+				CURRENT.remove();
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * @return true if the job had not finished yet and was not saving
+		 */
+		protected synchronized boolean cancel(){
+			if(finished != 0 || cancelled){
+				return false;
+			}
+			if(saving){
+				user.out("Job " + id + " is saving and can no longer be cancelled.");
+				return false;
+			}
+			cancelled = true;
+			if(future != null){
+				future.cancel(false); //The job stops at its next checkCancelled()
+			}
+			if(QUEUED.equals(status)){
+				finish(CANCELLED);
+			}
+			return true;
+		}
+
+		private synchronized void startSaving(){
+			checkCancelled();
+			saving = true;
+		}
+
+		protected String getStatus(){
+			if(RUNNING.equals(status) && total > 0){
+				return RUNNING + " " + (int) (100L*done/total) + "%";
+			}
+			return status;
+		}
+
+		/**
+		 * @return milliseconds the job has been running (or ran for), 0 if it has not started
+		 */
+		protected long elapsed(){
+			if(started == 0){
+				return 0;
+			}
+			return (finished == 0 ? System.currentTimeMillis() : finished) - started;
+		}
+
+		protected String elapsedText(){
+			long seconds = elapsed()/1000;
+			return String.format("%d:%02d", seconds/60, seconds%60);
+		}
+
+		protected boolean isFinished(){
+			return finished != 0;
+		}
+
+		private void finish(String status){
+			if(started == 0){
+				started = System.currentTimeMillis();
+			}
+			finished = System.currentTimeMillis();
+			this.status = status;
+			changed();
+		}
+
+		/**
+		 * Progress is only reported every 1% of the work, so the GUI is not flooded.
+		 */
+		private int step(int total){
+			return Math.max(1, total/100);
+		}
+
+		private JobExecutor executor(){
+			return JobExecutor.this;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package tool;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * GUI tab listing the background jobs of this session with their status and elapsed time.
+ * The selected job can be cancelled. Only used on the event dispatch thread.
+ * @dateEdited 10-18-2026
+ */
+@SuppressWarnings("serial")
+public class JobPanel extends JPanel {
+	private static final String[] COLUMNS = {"#", "Job", "Status", "Elapsed"};
+
+	private JobExecutor jobs;
+	private JobTableModel model;
+	private JTable table;
+	private Timer clock; //Refreshes the elapsed times while a job is running
+
+	public JobPanel(User user){
+		this.jobs = user.jobs;
+		user.visualVal.configurePanel(this, "y", VisualValues.SUBTAB_SIZE, Color.darkGray, null);
+		model = new JobTableModel();
+		table = new JTable(model);
+		table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		table.getColumnModel().getColumn(0).setMaxWidth(40);
+		JScrollPane scroll = new JScrollPane(table);
+		scroll.setBorder(BorderFactory.createTitledBorder("Background Jobs"));
+
+		JButton cancel = new JButton("Cancel Selected Job");
+		cancel.addActionListener(new ActionListener(){
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				int row = table.getSelectedRow();
+				if(row >= 0){
+					jobs.cancel(model.getJob(row).id);
+				}
+			}
+		});
+
+		clock = new Timer(1000, new ActionListener(){
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				refresh();
+			}
+		});
+		jobs.addListener(new Runnable(){
+			@Override
+			public void run() {
+				refresh();
+			}
+		});
+		add(scroll);
+		add(cancel);
+	}
+
+	/**
+	 * Reload the job list, keeping the selected job selected.
+	 */
+	private void refresh(){
+		int selected = table.getSelectedRow() >= 0 ? model.getJob(table.getSelectedRow()).id : -1;
+		model.setJobs(jobs.getJobs());
+		boolean running = false;
+		for(int row = 0; row<model.getRowCount(); row++){
+			JobExecutor.Job job = model.getJob(row);
+			running |= !job.isFinished();
+			if(job.id == selected){
+				table.setRowSelectionInterval(row, row);
+			}
+		}
+		if(running && !clock.isRunning()){
+			clock.start();
+		} else if(!running && clock.isRunning()){
+			clock.stop();
+		}
+	}
+
+	private static class JobTableModel extends AbstractTableModel {
+		private List<JobExecutor.Job> rows = new ArrayList<JobExecutor.Job>();
+
+		private void setJobs(List<JobExecutor.Job> jobs){
+			rows = jobs;
+			fireTableDataChanged();
+		}
+
+		private JobExecutor.Job getJob(int row){
+			return rows.get(row);
+		}
+
+		@Override
+		public int getRowCount() {
+			return rows.size();
+		}
+
+		@Override
+		public int getColumnCount() {
+			return COLUMNS.length;
+		}
+
+		@Override
+		public String getColumnName(int column) {
+			return COLUMNS[column];
+		}
+
+		@Override
+		public Object getValueAt(int row, int column) {
+			JobExecutor.Job job = rows.get(row);
+			if(column == 0){
+				return job.id;
+			} else if(column == 1){
+				return job.name;
+			} else if(column == 2){
+				return job.getStatus();
+			}
+			return job.elapsedText();
+		}
+	}
+}
@@ -0,0 +1,371 @@
+package tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Offset index of log.txt, kept next to it as log.txt.index, so the log can be queried by date, user and
+ * type of entry, or for its last N entries, without reading the whole file.
+ * The index holds one fixed size record per entry: its offset in log.txt, its time, a hash of the user name
+ * and its type. It is brought up to date by scanning only what was appended to log.txt since the last update,
+ * and rebuilt if log.txt was replaced or cut. Both files are memory mapped while a query runs.
+ * Entry times are local wall clock times, so they usually go up and date ranges are found with a binary search.
+ * When an update finds a time lower than the one before it (i.e., runs writing at the same time, the clock set
+ * back, or the hour repeated when daylight saving time ends), the index is marked as out of order and date
+ * ranges are found by checking every record instead.
+ * Offsets in log.txt are mapped as ints: the log must stay under 2 GB.
+ * @dateEdited 10-18-2026
+ */
+class LogIndex {
+	protected static final int ANY = -1; //any type of entry
+	protected static final int ENTRY = 0;
+	protected static final int NOTE = 1; //entries written with "log note"
+	protected static final int ERROR = 2; //entries written by Utilities.exceptionHandler and failed commands
+
+	private static final int MAGIC = 0x46434C58; //"FCLX"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 20; //magic, version, length of log.txt indexed, out of order flag
+	private static final int OUT_OF_ORDER = 16; //position of the flag in the header
+	private static final int RECORD_SIZE = 24; //offset, time, user hash, type
+	private static final int TIME_LENGTH = 19; //"MM-dd-yyyy HH:mm:ss"
+	private static final Charset CHARSET = Charset.defaultCharset(); //DataLogger writes with the default charset
+
+	private File logFile;
+	private File indexFile;
+
+	/**
+	 * @param logFile log.txt
+	 */
+	LogIndex(File logFile){
+		this.logFile = logFile;
+		indexFile = indexFile(logFile);
+	}
+
+	/**
+	 * @param logFile log.txt
+	 * @return the index file for log.txt
+	 */
+	protected static File indexFile(File logFile){
+		return new File(logFile.getPath() + ".index");
+	}
+
+	/**
+	 * Index the entries appended to log.txt since the last update.
+	 * Only complete lines are indexed; a line still being written is picked up by the next update.
+	 * @return number of entries added to the index
+	 * @throws IOException
+	 */
+	protected synchronized int update() throws IOException{
+		long logLength = logFile.length();
+		RandomAccessFile index = new RandomAccessFile(indexFile, "rw");
+		try{
+			long indexed = indexedLength(index, logLength);
+			if(indexed == logLength){
+				return 0;
+			}
+			long count = (index.length() - HEADER_SIZE)/RECORD_SIZE;
+			long previous = count == 0 ? Long.MIN_VALUE : readLong(index, count - 1, 8); //time of the last record
+			boolean outOfOrder = false;
+			FileChannel log = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream records = new DataOutputStream(bytes);
+			int added = 0;
+			long lineStart;
+			try{
+				MappedByteBuffer tail = log.map(FileChannel.MapMode.READ_ONLY, indexed, logLength - indexed);
+				byte[] line = new byte[256];
+				int start = 0;
+				for(int i = 0; i<tail.limit(); i++){
+					if(tail.get(i) != '\n'){
+						continue;
+					}
+					int length = i - start;
+					if(line.length < length){
+						line = new byte[Math.max(length, line.length*2)];
+					}
+					tail.position(start);
+					tail.get(line, 0, length);
+					Entry entry = parse(new String(line, 0, length, CHARSET));
+					if(entry != null){
+						outOfOrder |= entry.time < previous;
+						previous = entry.time;
+						records.writeLong(indexed + start);
+						records.writeLong(entry.time);
+						records.writeInt(entry.user.hashCode());
+						records.writeInt(entry.type);
+						added++;
+					}
+					start = i + 1;
+				}
+				lineStart = indexed + start;
+			} finally{
+				log.close();
+			}
+			records.close();
+			//The flag, the records, then the length: a crash in between leaves records past the indexed length,
+			//which are dropped
+			if(outOfOrder){
+				index.seek(OUT_OF_ORDER);
+				index.writeInt(1);
+			}
+			index.seek(index.length());
+			index.write(bytes.toByteArray());
+			index.seek(8);
+			index.writeLong(lineStart);
+			return added;
+		} finally{
+			index.close();
+		}
+	}
+
+	/**
+	 * Find entries, oldest first.
+	 * @param from earliest time (null for no limit)
+	 * @param to latest time (null for no limit)
+	 * @param user name of the user (null for any user)
+	 * @param type type of entry (ANY, ENTRY, NOTE or ERROR)
+	 * @param last only the last N matching entries (0 for all of them)
+	 * @return text of the matching entries, without their final line break
+	 * @throws IOException
+	 */
+	protected synchronized List<String> query(LocalDateTime from, LocalDateTime to, String user, int type, int last)
+			throws IOException{
+		update();
+		ArrayList<String> entries = new ArrayList<String>();
+		RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+		FileChannel log = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+		try{
+			index.seek(8);
+			long indexed = index.readLong();
+			boolean outOfOrder = index.readInt() != 0;
+			int count = (int) ((index.length() - HEADER_SIZE)/RECORD_SIZE);
+			if(count == 0){
+				return entries;
+			}
+			MappedByteBuffer records = index.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+					(long) count*RECORD_SIZE);
+			MappedByteBuffer text = log.map(FileChannel.MapMode.READ_ONLY, 0, indexed);
+			long fromTime = from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+			long toTime = to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+			int first = 0;
+			int end = count;
+			if(!outOfOrder){
+				first = firstAtOrAfter(records, count, fromTime);
+				end = firstAtOrAfter(records, count, toTime == Long.MAX_VALUE ? toTime : toTime + 1);
+			}
+			int userHash = user == null ? 0 : user.hashCode();
+			if(last > 0){
+				for(int i = end - 1; i>=first && entries.size()<last; i--){
+					String entry = match(records, text, count, indexed, i, fromTime, toTime, user, userHash, type);
+					if(entry != null){
+						entries.add(entry);
+					}
+				}
+				Collections.reverse(entries);
+			} else{
+				for(int i = first; i<end; i++){
+					String entry = match(records, text, count, indexed, i, fromTime, toTime, user, userHash, type);
+					if(entry != null){
+						entries.add(entry);
+					}
+				}
+			}
+		} finally{
+			log.close();
+			index.close();
+		}
+		return entries;
+	}
+
+	/**
+	 * @return the text of entry i if it matches the time range, user and type, null if not
+	 */
+	private String match(ByteBuffer records, ByteBuffer text, int count, long indexed, int i, long fromTime,
+			long toTime, String user, int userHash, int type){
+		int record = i*RECORD_SIZE;
+		long time = records.getLong(record + 8);
+		if(time < fromTime || time > toTime){
+			return null;
+		}
+		if((type != ANY && records.getInt(record + 20) != type) || (user != null && records.getInt(record + 16) != userHash)){
+			return null;
+		}
+		int offset = (int) records.getLong(record);
+		int end = (int) (i + 1 < count ? records.getLong(record + RECORD_SIZE) : indexed);
+		if(end > offset && text.get(end - 1) == '\n'){
+			end--;
+		}
+		byte[] bytes = new byte[end - offset];
+		text.position(offset);
+		text.get(bytes);
+		String entry = new String(bytes, CHARSET);
+		if(user != null && !user.equals(parse(entry).user)){
+			return null; //same hash, other user
+		}
+		return entry;
+	}
+
+	/**
+	 * @return the first record with a time at or after the given time (count if there is none)
+	 */
+	private int firstAtOrAfter(ByteBuffer records, int count, long time){
+		int low = 0;
+		int high = count;
+		while(low < high){
+			int middle = (low + high) >>> 1;
+			if(records.getLong(middle*RECORD_SIZE + 8) < time){
+				low = middle + 1;
+			} else{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Read the header and check that the index still belongs to log.txt. Starts a new index if not.
+	 * Records written after the header was last updated (a crash during update()) are dropped.
+	 * @return length of log.txt covered by the index
+	 */
+	private long indexedLength(RandomAccessFile index, long logLength) throws IOException{
+		long indexed = -1;
+		if(index.length() >= HEADER_SIZE && index.readInt() == MAGIC && index.readInt() == VERSION){
+			indexed = index.readLong();
+		}
+		if(indexed >= 0 && indexed <= logLength){
+			long count = (index.length() - HEADER_SIZE)/RECORD_SIZE;
+			while(count > 0 && readLong(index, count - 1, 0) >= indexed){
+				count--;
+			}
+			if(index.length() != HEADER_SIZE + count*RECORD_SIZE){
+				index.setLength(HEADER_SIZE + count*RECORD_SIZE);
+			}
+			if(count == 0 || startsWith(readLong(index, count - 1, 0), readLong(index, count - 1, 8))){
+				return indexed;
+			}
+		}
+		index.setLength(0);
+		index.seek(0);
+		index.writeInt(MAGIC);
+		index.writeInt(VERSION);
+		index.writeLong(0);
+		index.writeInt(0);
+		return 0;
+	}
+
+	private long readLong(RandomAccessFile index, long record, int field) throws IOException{
+		index.seek(HEADER_SIZE + record*RECORD_SIZE + field);
+		return index.readLong();
+	}
+
+	/**
+	 * @return true if log.txt still has an entry with the given time at the given offset
+	 */
+	private boolean startsWith(long offset, long time) throws IOException{
+		RandomAccessFile log = new RandomAccessFile(logFile, "r");
+		try{
+			if(offset + TIME_LENGTH > log.length()){
+				return false;
+			}
+			byte[] bytes = new byte[TIME_LENGTH];
+			log.seek(offset);
+			log.readFully(bytes);
+			return time == time(new String(bytes, CHARSET));
+		} finally{
+			log.close();
+		}
+	}
+
+	/**
+	 * Parse the start of a log line: "MM-dd-yyyy HH:mm:ss user:action".
+	 * @param line line of log.txt
+	 * @return the entry, or null if the line does not start an entry (i.e., the rest of a multi line entry)
+	 */
+	private static Entry parse(String line){
+		if(line.length() <= TIME_LENGTH + 1 || line.charAt(TIME_LENGTH) != ' '){
+			return null;
+		}
+		long time = time(line.substring(0, TIME_LENGTH));
+		int colon = line.indexOf(':', TIME_LENGTH + 1);
+		if(time == Long.MIN_VALUE || colon < 0){
+			return null;
+		}
+		String action = line.substring(colon + 1);
+		int type = ENTRY;
+		if(action.contains("Note:")){
+			type = NOTE;
+		} else if(action.trim().toLowerCase().startsWith("error")){
+			type = ERROR;
+		}
+		return new Entry(time, line.substring(TIME_LENGTH + 1, colon), type);
+	}
+
+	/**
+	 * Parse "MM-dd-yyyy HH:mm:ss" by hand: it is done for every line when the index is built.
+	 * @return the time as seconds, or Long.MIN_VALUE if it can not be parsed
+	 */
+	private static long time(String text){
+		if(text.charAt(2) != '-' || text.charAt(5) != '-' || text.charAt(10) != ' ' || text.charAt(13) != ':'
+				|| text.charAt(16) != ':'){
+			return Long.MIN_VALUE;
+		}
+		int month = number(text, 0, 2);
+		int day = number(text, 3, 2);
+		int year = number(text, 6, 4);
+		int hour = number(text, 11, 2);
+		int minute = number(text, 14, 2);
+		int second = number(text, 17, 2);
+		if(month < 0 || day < 0 || year < 0 || hour < 0 || minute < 0 || second < 0){
+			return Long.MIN_VALUE;
+		}
+		try{
+			return LocalDateTime.of(year, month, day, hour, minute, second).toEpochSecond(ZoneOffset.UTC);
+		} catch(DateTimeException e){
+			return Long.MIN_VALUE;
+		}
+	}
+
+	/**
+	 * @return the number written with the given digits, or -1 if one of them is not a digit
+	 */
+	private static int number(String text, int start, int digits){
+		int number = 0;
+		for(int i = start; i<start + digits; i++){
+			char digit = text.charAt(i);
+			if(digit < '0' || digit > '9'){
+				return -1;
+			}
+			number = number*10 + digit - '0';
+		}
+		return number;
+	}
+
+	/**
+	 * The parts of a log entry that are indexed.
+	 */
+	private static class Entry {
+		private long time; //local time, in seconds
+		private String user;
+		private int type;
+
+		private Entry(long time, String user, int type){
+			this.time = time;
+			this.user = user;
+			this.type = type;
+		}
+	}
+}
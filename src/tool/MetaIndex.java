@@ -0,0 +1,272 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+
+/**
+ * The tab records of data.xls's Meta sheet, read once into typed records.
+ * Each tab added to data.xls has a 4 row record in the Meta sheet (see ExcelWriter.addMeta): its tab number,
+ * source file, author, date created and tab name. Records are found by their "@Source File Added" row, so the
+ * index does not depend on the Next Row counter in cell (0,1).
+ * Records can be looked up by tab number or tab name, and listed by source file or by author.
+ * Changes are made to the index and written back to the sheet in one pass with write().
+ * @dateEdited 10-18-2026
+ */
+class MetaIndex {
+	protected static final int RECORD_ROWS = 4;
+	private static final int FIRST_RECORD_ROW = 12; //Below the description of data.xls
+	private static final String SOURCE_LABEL = "@Source File Added";
+	private static final String AUTHOR_LABEL = "@Source File Author";
+	private static final String DATE_LABEL = "@Date Created";
+	private static final String TAB_LABEL = "@Tab Name";
+	private static final Comparator<Record> BY_TAB = new Comparator<Record>(){
+		@Override
+		public int compare(Record a, Record b){
+			return Integer.compare(a.tab, b.tab);
+		}
+	};
+
+	private HSSFSheet sheet;
+	private int firstRow; //Row of the first record
+	private int endRow; //Row after the last record read from the sheet
+	private ArrayList<Record> records; //by tab number
+	private HashMap<Integer, Record> byTab;
+	private HashMap<String, Record> byName; //lower case tab name
+	private HashMap<String, List<Record>> byFile; //lower case source file
+	private HashMap<String, List<Record>> byAuthor; //lower case author
+
+	/**
+	 * Read the records of a Meta sheet.
+	 * @param sheet Meta sheet (first sheet of data.xls)
+	 */
+	MetaIndex(HSSFSheet sheet){
+		this.sheet = sheet;
+		records = new ArrayList<Record>();
+		firstRow = -1;
+		for(int row = sheet.getFirstRowNum(); row<=sheet.getLastRowNum(); row++){
+			if(isRecord(sheet.getRow(row))){
+				if(firstRow < 0){
+					firstRow = row;
+				}
+				records.add(readRecord(row));
+				row += RECORD_ROWS - 1;
+				endRow = row + 1;
+			}
+		}
+		if(firstRow < 0){
+			firstRow = Math.max(FIRST_RECORD_ROW, nextRow());
+			endRow = firstRow;
+		}
+		Collections.sort(records, BY_TAB);
+		reindex();
+	}
+
+	protected List<Record> records(){
+		return Collections.unmodifiableList(records);
+	}
+
+	/**
+	 * @param tab tab number (sheet index in data.xls)
+	 * @return the record of the tab, or null if it has none
+	 */
+	protected Record record(int tab){
+		return byTab.get(tab);
+	}
+
+	/**
+	 * @param tabName name of the tab (any case)
+	 * @return the record of the tab, or null if it has none
+	 */
+	protected Record record(String tabName){
+		return byName.get(tabName.trim().toLowerCase());
+	}
+
+	/**
+	 * @param sourceFile name of a source file (any case)
+	 * @return the records of the tabs added from the file, in tab order
+	 */
+	protected List<Record> fromFile(String sourceFile){
+		return listed(byFile, sourceFile);
+	}
+
+	/**
+	 * @param author user name (any case)
+	 * @return the records of the tabs added by the user, in tab order
+	 */
+	protected List<Record> byAuthor(String author){
+		return listed(byAuthor, author);
+	}
+
+	/**
+	 * Add the record of a new tab.
+	 * @param tab tab number
+	 * @param sourceFile name of the source file, or null for a data cleaning
+	 * @param author user name
+	 * @param dateCreated date, as MM-dd-yyyy
+	 * @param tabName name of the tab
+	 * @return the new record
+	 */
+	protected Record add(int tab, String sourceFile, String author, String dateCreated, String tabName){
+		Record record = new Record(tab, sourceFile == null ? "No file: Data Cleaning." : sourceFile, author, dateCreated,
+				tabName);
+		records.add(record);
+		Collections.sort(records, BY_TAB); //New tabs are added last, so this only checks the order
+		reindex();
+		return record;
+	}
+
+	/**
+	 * Drop the records of removed tabs and renumber the others (one less for each removed tab before them).
+	 * @param removed sorted numbers of the removed tabs
+	 * @return number of records dropped
+	 */
+	protected int remove(int[] removed){
+		ArrayList<Record> kept = new ArrayList<Record>(records.size());
+		for(Record record : records){
+			int before = Arrays.binarySearch(removed, record.tab);
+			if(before < 0){
+				record.tab += before + 1;
+				kept.add(record);
+			}
+		}
+		int dropped = records.size() - kept.size();
+		records = kept;
+		reindex();
+		return dropped;
+	}
+
+	/**
+	 * Write every record back to the sheet in one pass, from the first record row down, remove the rows of
+	 * records that are gone and set Next Row past the last record.
+	 * The sheet is only changed in memory; it is saved with the rest of data.xls.
+	 */
+	protected void write(){
+		int row = firstRow;
+		for(Record record : records){
+			writeRow(row, record.tab, SOURCE_LABEL, record.sourceFile);
+			writeRow(row + 1, null, AUTHOR_LABEL, record.author);
+			writeRow(row + 2, null, DATE_LABEL, record.dateCreated);
+			writeRow(row + 3, null, TAB_LABEL, record.tabName);
+			row += RECORD_ROWS;
+		}
+		for(int old = row; old<endRow; old++){
+			if(sheet.getRow(old) != null){
+				sheet.removeRow(sheet.getRow(old));
+			}
+		}
+		endRow = row;
+		sheet.getRow(0).getCell(1).setCellValue(row);
+	}
+
+	/**
+	 * @return the Next Row counter in cell (0,1), written as a number or as text (0 if there is none)
+	 */
+	private int nextRow(){
+		HSSFRow row = sheet.getRow(0);
+		HSSFCell cell = row == null ? null : row.getCell(1);
+		if(cell == null){
+			return 0;
+		} else if(cell.getCellType() == HSSFCell.CELL_TYPE_NUMERIC){
+			return (int) cell.getNumericCellValue();
+		}
+		try{
+			return (int) Double.parseDouble(cell.getStringCellValue().trim());
+		} catch(RuntimeException e){
+			return 0;
+		}
+	}
+
+	private static boolean isRecord(HSSFRow row){
+		if(row == null || row.getCell(1) == null || row.getCell(2) == null){
+			return false;
+		}
+		return row.getCell(1).getCellType() == HSSFCell.CELL_TYPE_NUMERIC
+				&& row.getCell(2).getCellType() == HSSFCell.CELL_TYPE_STRING
+				&& row.getCell(2).getStringCellValue().equals(SOURCE_LABEL);
+	}
+
+	private Record readRecord(int row){
+		return new Record((int) sheet.getRow(row).getCell(1).getNumericCellValue(), value(row), value(row + 1),
+				value(row + 2), value(row + 3));
+	}
+
+	/**
+	 * @return the text in column 3 of a row ("" if there is none)
+	 */
+	private String value(int row){
+		HSSFRow sheetRow = sheet.getRow(row);
+		HSSFCell cell = sheetRow == null ? null : sheetRow.getCell(3);
+		return cell == null ? "" : cell.toString();
+	}
+
+	private void writeRow(int row, Integer tab, String label, String value){
+		HSSFRow sheetRow = sheet.getRow(row) == null ? sheet.createRow(row) : sheet.getRow(row);
+		if(tab != null){
+			sheetRow.createCell(1).setCellValue(tab);
+		} else{
+			sheetRow.createCell(1).setCellValue("-");
+		}
+		sheetRow.createCell(2).setCellValue(label);
+		sheetRow.createCell(3).setCellValue(value);
+	}
+
+	private void reindex(){
+		byTab = new HashMap<Integer, Record>();
+		byName = new HashMap<String, Record>();
+		byFile = new HashMap<String, List<Record>>();
+		byAuthor = new HashMap<String, List<Record>>();
+		for(Record record : records){
+			byTab.put(record.tab, record);
+			byName.put(record.tabName.trim().toLowerCase(), record);
+			addTo(byFile, record.sourceFile, record);
+			addTo(byAuthor, record.author, record);
+		}
+	}
+
+	private static void addTo(HashMap<String, List<Record>> map, String key, Record record){
+		String lower = key.trim().toLowerCase();
+		List<Record> list = map.get(lower);
+		if(list == null){
+			list = new ArrayList<Record>(1);
+			map.put(lower, list);
+		}
+		list.add(record);
+	}
+
+	private static List<Record> listed(HashMap<String, List<Record>> map, String key){
+		List<Record> list = map.get(key.trim().toLowerCase());
+		return list == null ? Collections.<Record>emptyList() : Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * The Meta record of one tab of data.xls.
+	 */
+	protected static class Record {
+		protected int tab;
+		protected final String sourceFile;
+		protected final String author;
+		protected final String dateCreated;
+		protected final String tabName;
+
+		private Record(int tab, String sourceFile, String author, String dateCreated, String tabName){
+			this.tab = tab;
+			this.sourceFile = sourceFile;
+			this.author = author;
+			this.dateCreated = dateCreated;
+			this.tabName = tabName;
+		}
+
+		@Override
+		public String toString(){
+			return tab + ": " + tabName + " (" + sourceFile + ", added by " + author + " on " + dateCreated + ")";
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Approximate lookup of categorized items by name, for purchases whose name is spelled a little differently
+ * from data.xls (i.e., "chix  brst." for "chix brst").
+ * Names are normalized (lower case, punctuation removed, single spaces) and indexed by their trigrams.
+ * A lookup counts the trigrams each name shares with the purchase, keeps the names that share enough to be
+ * within MAX_EDITS edits, and checks those with a bounded edit distance.
+ * Only items with the same receive unit are matched, since their weights are per receive unit, and only names
+ * with the same numbers (i.e., "cup hot 16oz" is not "cup hot 12oz", nor "milk 1%" "milk 2%").
+ * Built from currentData once per categorization; lookups must be made from one thread at a time.
+ * @dateEdited 10-18-2026
+ */
+class NameIndex {
+	protected static int MAX_EDITS = 3; //Most edits allowed, for names of 6*MAX_EDITS characters or more
+	private static final int CHARS_PER_EDIT = 6; //Shorter names allow fewer edits
+	private static final int MAX_CANDIDATES = 32; //Names checked with the edit distance per lookup
+
+	private String[] names; //distinct normalized names
+	private FoodItem[][] items; //categorized items with each name
+	private HashMap<String, Integer> nameIds;
+	private HashMap<Long, int[]> trigrams; //trigram -> ids of the names that have it
+	private int[] shared; //trigrams shared with the current lookup, by name id
+	private int[] touched; //name ids with a count in shared
+
+	/**
+	 * Index the categorized items.
+	 * @param data currentData
+	 */
+	NameIndex(Iterable<FoodItem> data){
+		nameIds = new HashMap<String, Integer>();
+		ArrayList<String> nameList = new ArrayList<String>();
+		ArrayList<ArrayList<FoodItem>> itemLists = new ArrayList<ArrayList<FoodItem>>();
+		for(FoodItem item : data){
+			if(item.numCategories() == 0){
+				continue;
+			}
+			String name = normalize(item.getItemName());
+			Integer id = nameIds.get(name);
+			if(id == null){
+				id = nameList.size();
+				nameIds.put(name, id);
+				nameList.add(name);
+				itemLists.add(new ArrayList<FoodItem>(1));
+			}
+			itemLists.get(id).add(item);
+		}
+		names = nameList.toArray(new String[nameList.size()]);
+		items = new FoodItem[names.length][];
+		HashMap<Long, int[]> lists = new HashMap<Long, int[]>();
+		for(int id = 0; id<names.length; id++){
+			items[id] = itemLists.get(id).toArray(new FoodItem[itemLists.get(id).size()]);
+			for(long trigram : trigrams(names[id])){
+				int[] list = lists.get(trigram);
+				if(list == null){
+					list = new int[]{0, 0, 0, 0}; //list[0] is the size
+					lists.put(trigram, list);
+				} else if(list[0] + 1 == list.length){
+					list = Arrays.copyOf(list, list.length*2);
+					lists.put(trigram, list);
+				}
+				list[++list[0]] = id;
+			}
+		}
+		trigrams = new HashMap<Long, int[]>(lists.size()*2);
+		for(Map.Entry<Long, int[]> entry : lists.entrySet()){
+			int[] list = entry.getValue();
+			trigrams.put(entry.getKey(), Arrays.copyOfRange(list, 1, list[0] + 1));
+		}
+		shared = new int[names.length];
+		touched = new int[names.length];
+	}
+
+	protected int size(){
+		return names.length;
+	}
+
+	/**
+	 * Find the closest categorized item for a purchase.
+	 * Among the names with the fewest edits, an item from the same vendor is preferred.
+	 * @param item purchased item that has no exact match
+	 * @return the match, or null if no categorized item with the same receive unit is close enough
+	 */
+	protected Match find(FoodItem item){
+		String name = normalize(item.getItemName());
+		String rcvUnit = String.valueOf(item.getReceiveUnit()).trim().toLowerCase();
+		String vendor = String.valueOf(item.getVendor()).toLowerCase();
+		Integer exact = nameIds.get(name);
+		if(exact != null){
+			FoodItem match = pick(exact, rcvUnit, vendor);
+			if(match != null){
+				return new Match(match, 0);
+			}
+		}
+		String numbers = numbers(name);
+		int maxEdits = Math.min(MAX_EDITS, name.length()/CHARS_PER_EDIT);
+		if(maxEdits == 0){
+			return null;
+		}
+		long[] queryTrigrams = trigrams(name);
+		int count = 0;
+		for(long trigram : queryTrigrams){
+			int[] list = trigrams.get(trigram);
+			if(list != null){
+				for(int id : list){
+					if(shared[id]++ == 0){
+						touched[count++] = id;
+					}
+				}
+			}
+		}
+		//Each edit changes at most 3 trigrams
+		int minShared = queryTrigrams.length - 3*maxEdits;
+		int[] candidates = new int[Math.min(count, MAX_CANDIDATES)];
+		int candidateCount = 0;
+		for(int i = 0; i<count; i++){
+			int id = touched[i];
+			if(shared[id] >= Math.max(1, minShared) && Math.abs(names[id].length() - name.length()) <= maxEdits){
+				candidateCount = addCandidate(candidates, candidateCount, id);
+			}
+		}
+		for(int i = 0; i<count; i++){
+			shared[touched[i]] = 0;
+		}
+		Match best = null;
+		for(int i = 0; i<candidateCount; i++){
+			int id = candidates[i];
+			if(!numbers(names[id]).equals(numbers)){
+				continue;
+			}
+			int edits = editDistance(name, names[id], maxEdits);
+			FoodItem match = edits <= maxEdits ? pick(id, rcvUnit, vendor) : null;
+			if(match == null){
+				continue;
+			}
+			boolean sameVendor = sameVendor(match, vendor);
+			if(best == null || edits < best.edits || (edits == best.edits && sameVendor && !best.sameVendor)){
+				best = new Match(match, edits);
+				best.sameVendor = sameVendor;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Keep the candidates sharing the most trigrams (ties go to the lower id, so lookups are repeatable).
+	 */
+	private int addCandidate(int[] candidates, int size, int id){
+		int position = size;
+		while(position > 0 && better(id, candidates[position - 1])){
+			position--;
+		}
+		if(position == candidates.length){
+			return size;
+		}
+		int moved = Math.min(size, candidates.length - 1) - position;
+		System.arraycopy(candidates, position, candidates, position + 1, moved);
+		candidates[position] = id;
+		return Math.min(size + 1, candidates.length);
+	}
+
+	private boolean better(int id, int other){
+		return shared[id] > shared[other] || (shared[id] == shared[other] && id < other);
+	}
+
+	/**
+	 * @return the item with the name id and receive unit, from the vendor if there is one, or null
+	 */
+	private FoodItem pick(int id, String rcvUnit, String vendor){
+		FoodItem match = null;
+		for(FoodItem candidate : items[id]){
+			if(String.valueOf(candidate.getReceiveUnit()).trim().toLowerCase().equals(rcvUnit)){
+				if(sameVendor(candidate, vendor)){
+					return candidate;
+				} else if(match == null){
+					match = candidate;
+				}
+			}
+		}
+		return match;
+	}
+
+	private static boolean sameVendor(FoodItem item, String vendor){
+		return String.valueOf(item.getVendor()).toLowerCase().equals(vendor);
+	}
+
+	/**
+	 * Lower case, letters and digits only, words separated by single spaces.
+	 * @param name item name
+	 * @return normalized name
+	 */
+	protected static String normalize(String name){
+		StringBuilder normal = new StringBuilder(name.length());
+		boolean space = false;
+		for(int i = 0; i<name.length(); i++){
+			char c = Character.toLowerCase(name.charAt(i));
+			if(Character.isLetterOrDigit(c)){
+				if(space && normal.length() > 0){
+					normal.append(' ');
+				}
+				normal.append(c);
+				space = false;
+			} else{
+				space = true;
+			}
+		}
+		return normal.toString();
+	}
+
+	/**
+	 * @return the numbers in a normalized name, separated by spaces (i.e., "16" for "cup hot 16oz")
+	 */
+	private static String numbers(String name){
+		StringBuilder numbers = new StringBuilder();
+		boolean digit = false;
+		for(int i = 0; i<name.length(); i++){
+			char c = name.charAt(i);
+			if(Character.isDigit(c)){
+				if(!digit && numbers.length() > 0){
+					numbers.append(' ');
+				}
+				numbers.append(c);
+			}
+			digit = Character.isDigit(c);
+		}
+		return numbers.toString();
+	}
+
+	/**
+	 * @return the distinct trigrams of a name padded with a space on each side, three chars packed in a long
+	 */
+	private static long[] trigrams(String name){
+		String padded = " " + name + " ";
+		long[] grams = new long[Math.max(0, padded.length() - 2)];
+		for(int i = 0; i<grams.length; i++){
+			grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+		}
+		Arrays.sort(grams);
+		int distinct = 0;
+		for(int i = 0; i<grams.length; i++){
+			if(i == 0 || grams[i] != grams[i - 1]){
+				grams[distinct++] = grams[i];
+			}
+		}
+		return Arrays.copyOf(grams, distinct);
+	}
+
+	/**
+	 * Levenshtein distance, only computed in the band of width 2*limit+1 around the diagonal.
+	 * @return the distance, or limit+1 if it is more than limit
+	 */
+	protected static int editDistance(String a, String b, int limit){
+		if(Math.abs(a.length() - b.length()) > limit){
+			return limit + 1;
+		}
+		int over = limit + 1;
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for(int j = 0; j<=b.length(); j++){
+			previous[j] = j <= limit ? j : over;
+		}
+		for(int i = 1; i<=a.length(); i++){
+			int from = Math.max(1, i - limit);
+			int to = Math.min(b.length(), i + limit);
+			Arrays.fill(current, over);
+			current[0] = i <= limit ? i : over;
+			int rowMin = current[0];
+			for(int j = from; j<=to; j++){
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				current[j] = Math.min(distance, over);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if(rowMin > limit){
+				return over;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return Math.min(previous[b.length()], over);
+	}
+
+	/**
+	 * A categorized item found for a purchase and the number of edits between their normalized names.
+	 */
+	protected static class Match {
+		protected final FoodItem item;
+		protected final int edits;
+		private boolean sameVendor;
+
+		private Match(FoodItem item, int edits){
+			this.item = item;
+			this.edits = edits;
+		}
+	}
+}
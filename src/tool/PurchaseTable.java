@@ -0,0 +1,205 @@
+package tool;
+
+import java.util.HashMap;
+
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+
+/**
+ * A purchase sheet read once into columns for Categorize.
+ * Item names, receive units and vendors are dictionary encoded (trimmed and lower case, as Categorize compares
+ * them), quantities and prices are kept as doubles. Rows are numbered as in the sheet.
+ * A cell that could not be read keeps the exception POI threw for it; it is thrown again when the cell is used,
+ * so a bad row fails the categorization the same way it did when the sheet was read directly.
+ * @dateEdited 10-18-2026
+ */
+class PurchaseTable {
+	private static final byte NAME_ERROR = 1;
+	private static final byte RCV_UNIT_ERROR = 2;
+	private static final byte VALUE_ERROR = 4; //vendor, quantity or price
+
+	private ColumnSchema columns;
+	private SymbolTable symbols;
+	private int firstRow;
+	private int[] names;
+	private int[] rcvUnits;
+	private int[] vendors;
+	private double[] quantities;
+	private double[] prices;
+	private byte[] errors; //error flags of each row
+	private HashMap<Integer, RuntimeException> nameErrors;
+	private HashMap<Integer, RuntimeException> rcvUnitErrors;
+	private HashMap<Integer, RuntimeException> valueErrors;
+
+	/**
+	 * Read every row of a purchase sheet.
+	 * @param sheet first sheet of the purchase file
+	 * @param columns purchase columns of the file
+	 */
+	PurchaseTable(HSSFSheet sheet, ColumnSchema columns){
+		this.columns = columns;
+		symbols = new SymbolTable();
+		firstRow = sheet.getFirstRowNum();
+		int rows = sheet.getLastRowNum() - firstRow + 1;
+		names = new int[rows];
+		rcvUnits = new int[rows];
+		vendors = new int[rows];
+		quantities = new double[rows];
+		prices = new double[rows];
+		errors = new byte[rows];
+		nameErrors = new HashMap<Integer, RuntimeException>();
+		rcvUnitErrors = new HashMap<Integer, RuntimeException>();
+		valueErrors = new HashMap<Integer, RuntimeException>();
+		for(int i = 0; i<rows; i++){
+			readRow(sheet.getRow(firstRow + i), i);
+		}
+	}
+
+	protected int firstRow(){
+		return firstRow;
+	}
+
+	protected int lastRow(){
+		return firstRow + names.length - 1;
+	}
+
+	/**
+	 * @param row row number
+	 * @return code of the item name
+	 */
+	protected int name(int row){
+		int i = row - firstRow;
+		if((errors[i] & NAME_ERROR) != 0){
+			throw nameErrors.get(row);
+		}
+		return names[i];
+	}
+
+	/**
+	 * @param row row number
+	 * @return code of the receive unit
+	 */
+	protected int rcvUnit(int row){
+		int i = row - firstRow;
+		if((errors[i] & RCV_UNIT_ERROR) != 0){
+			throw rcvUnitErrors.get(row);
+		}
+		return rcvUnits[i];
+	}
+
+	/**
+	 * @param row row number
+	 * @return code of the vendor
+	 */
+	protected int vendor(int row){
+		return vendors[values(row)];
+	}
+
+	protected double quantity(int row){
+		return quantities[values(row)];
+	}
+
+	protected double price(int row){
+		return prices[values(row)];
+	}
+
+	/**
+	 * @param row row number
+	 * @return true if every cell of the row could be read
+	 */
+	protected boolean isReadable(int row){
+		return errors[row - firstRow] == 0;
+	}
+
+	/**
+	 * Sort the readable rows by item name, receive unit and vendor code, with a counting sort on each column.
+	 * The sort is stable: rows with the same codes stay in sheet order.
+	 * @return row numbers in sorted order
+	 */
+	protected int[] sortedRows(){
+		int readable = 0;
+		for(byte error : errors){
+			if(error == 0){
+				readable++;
+			}
+		}
+		int[] rows = new int[readable];
+		for(int i = 0, next = 0; i<errors.length; i++){
+			if(errors[i] == 0){
+				rows[next++] = i;
+			}
+		}
+		rows = sortBy(sortBy(sortBy(rows, vendors), rcvUnits), names);
+		for(int i = 0; i<rows.length; i++){
+			rows[i] += firstRow;
+		}
+		return rows;
+	}
+
+	/**
+	 * @param code code from this table
+	 * @return the name, receive unit or vendor for the code
+	 */
+	protected String symbol(int code){
+		return symbols.symbol(code);
+	}
+
+	/**
+	 * @return index of the row in the columns
+	 * @throws RuntimeException the exception thrown when its vendor, quantity or price was read
+	 */
+	private int values(int row){
+		int i = row - firstRow;
+		if((errors[i] & VALUE_ERROR) != 0){
+			throw valueErrors.get(row);
+		}
+		return i;
+	}
+
+	private int[] sortBy(int[] rows, int[] column){
+		int[] starts = new int[symbols.size() + 1];
+		for(int i : rows){
+			starts[column[i] + 1]++;
+		}
+		for(int code = 1; code<starts.length; code++){
+			starts[code] += starts[code - 1];
+		}
+		int[] sorted = new int[rows.length];
+		for(int i : rows){
+			sorted[starts[column[i]]++] = i;
+		}
+		return sorted;
+	}
+
+	/**
+	 * Read the cells the same way Categorize used to: vendor, quantity then price.
+	 */
+	private void readRow(HSSFRow row, int i){
+		int rowNum = firstRow + i;
+		try{
+			names[i] = symbols.code(text(row.getCell(columns.itemName)));
+		} catch(RuntimeException e){
+			errors[i] |= NAME_ERROR;
+			nameErrors.put(rowNum, e);
+		}
+		try{
+			rcvUnits[i] = symbols.code(text(row.getCell(columns.rcvUnit)));
+		} catch(RuntimeException e){
+			errors[i] |= RCV_UNIT_ERROR;
+			rcvUnitErrors.put(rowNum, e);
+		}
+		try{
+			vendors[i] = symbols.code(text(row.getCell(columns.vendor)));
+			quantities[i] = row.getCell(columns.quantity).getNumericCellValue();
+			prices[i] = row.getCell(columns.price).getNumericCellValue();
+		} catch(RuntimeException e){
+			errors[i] |= VALUE_ERROR;
+			valueErrors.put(rowNum, e);
+		}
+	}
+
+	private static String text(HSSFCell cell){
+		return cell.getStringCellValue().trim().toLowerCase();
+	}
+}
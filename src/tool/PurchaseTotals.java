@@ -0,0 +1,199 @@
+package tool;
+
+import java.util.Arrays;
+
+/**
+ * Costs and quantities of purchase rows totaled by item name, receive unit and vendor.
+ * The three dictionary codes of a row (see PurchaseTable) are packed into one long key; each distinct key is a
+ * group with an id, and the sums are kept in Accumulators indexed by group id, so adding a row allocates nothing.
+ * Rows can be added through an open addressing hash table in one pass (hashed), or the table can be totaled
+ * by sorting its rows on their codes first (sorted). Both give the same groups and the same sums.
+ * @dateEdited 10-18-2026
+ */
+class PurchaseTotals {
+	private static final int CODE_BITS = 21;
+	private static final long CODE_MASK = (1L << CODE_BITS) - 1;
+	private static final long EMPTY = -1; //free slot (keys are never negative)
+
+	private long[] slots; //key in each slot of the hash table (null for sorted totals)
+	private int[] slotGroups; //group id in each slot
+	private long[] keys; //key of each group
+	private Accumulators sums;
+	private int size;
+
+	/**
+	 * @param expectedGroups number of groups expected (the arrays grow past it)
+	 */
+	PurchaseTotals(int expectedGroups){
+		int capacity = Math.max(4, expectedGroups);
+		keys = new long[capacity];
+		sums = new Accumulators(capacity);
+		int tableSize = Integer.highestOneBit(capacity*2 - 1) << 1;
+		slots = new long[tableSize];
+		Arrays.fill(slots, EMPTY);
+		slotGroups = new int[tableSize];
+	}
+
+	/**
+	 * Total every readable row of a table in one pass through a hash table.
+	 * @param table purchase table
+	 * @return the totals
+	 */
+	protected static PurchaseTotals hashed(PurchaseTable table){
+		PurchaseTotals totals = new PurchaseTotals(Math.max(16, (table.lastRow() - table.firstRow() + 1)/4));
+		for(int row = table.firstRow(); row<=table.lastRow(); row++){
+			if(table.isReadable(row)){
+				totals.add(key(table.name(row), table.rcvUnit(row), table.vendor(row)), table.price(row), table.quantity(row));
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Total every readable row of a table by sorting the rows on their codes and adding up each run of equal keys.
+	 * Needs no hash table; the groups are made in key order.
+	 * @param table purchase table
+	 * @return the totals
+	 */
+	protected static PurchaseTotals sorted(PurchaseTable table){
+		int[] rows = table.sortedRows();
+		PurchaseTotals totals = new PurchaseTotals(16);
+		totals.slots = null;
+		totals.slotGroups = null;
+		long last = EMPTY;
+		for(int row : rows){
+			long key = key(table.name(row), table.rcvUnit(row), table.vendor(row));
+			if(key != last){
+				totals.newGroup(key);
+				last = key;
+			}
+			totals.sums.add(totals.size - 1, table.price(row), table.quantity(row));
+		}
+		return totals;
+	}
+
+	/**
+	 * @return the key for a row's item name, receive unit and vendor codes
+	 */
+	protected static long key(int name, int rcvUnit, int vendor){
+		if(((name | rcvUnit | vendor) & ~CODE_MASK) != 0){
+			throw new IllegalStateException("Too many different names, receive units and vendors to total.");
+		}
+		return ((long) name << 2*CODE_BITS) | ((long) rcvUnit << CODE_BITS) | vendor;
+	}
+
+	/**
+	 * Add a purchase row to its group.
+	 * @param key key of the row
+	 * @param price price of the row
+	 * @param qty quantity of the row
+	 * @return id of the group
+	 */
+	protected int add(long key, double price, double qty){
+		int mask = slots.length - 1;
+		int slot = hash(key) & mask;
+		while(slots[slot] != EMPTY && slots[slot] != key){
+			slot = (slot + 1) & mask;
+		}
+		int group;
+		if(slots[slot] == EMPTY){
+			group = newGroup(key);
+			slots[slot] = key;
+			slotGroups[slot] = group;
+			if(size*2 > slots.length){
+				rehash();
+			}
+		} else{
+			group = slotGroups[slot];
+		}
+		sums.add(group, price, qty);
+		return group;
+	}
+
+	protected int size(){
+		return size;
+	}
+
+	protected int name(int group){
+		return (int) (keys[group] >>> 2*CODE_BITS);
+	}
+
+	protected int rcvUnit(int group){
+		return (int) ((keys[group] >>> CODE_BITS) & CODE_MASK);
+	}
+
+	protected int vendor(int group){
+		return (int) (keys[group] & CODE_MASK);
+	}
+
+	protected double cost(int group){
+		return sums.cost(group);
+	}
+
+	protected double quantity(int group){
+		return sums.quantity(group);
+	}
+
+	/**
+	 * @return the group ids ordered by item name, receive unit and vendor codes (i.e., order of first appearance
+	 * of each name, then of each receive unit and vendor)
+	 */
+	protected int[] byKey(){
+		int[] groups = new int[size];
+		if(slots == null){
+			for(int group = 0; group<size; group++){
+				groups[group] = group;
+			}
+			return groups;
+		}
+		long[] sortedKeys = Arrays.copyOf(keys, size);
+		Arrays.sort(sortedKeys);
+		for(int i = 0; i<size; i++){
+			groups[i] = find(sortedKeys[i]);
+		}
+		return groups;
+	}
+
+	private int find(long key){
+		int mask = slots.length - 1;
+		int slot = hash(key) & mask;
+		while(slots[slot] != key){
+			slot = (slot + 1) & mask;
+		}
+		return slotGroups[slot];
+	}
+
+	private int newGroup(long key){
+		if(size == keys.length){
+			int capacity = size*2;
+			keys = Arrays.copyOf(keys, capacity);
+			sums.grow(capacity);
+		}
+		keys[size] = key;
+		return size++;
+	}
+
+	private void rehash(){
+		long[] oldSlots = slots;
+		int[] oldGroups = slotGroups;
+		slots = new long[oldSlots.length*2];
+		Arrays.fill(slots, EMPTY);
+		slotGroups = new int[slots.length];
+		int mask = slots.length - 1;
+		for(int i = 0; i<oldSlots.length; i++){
+			if(oldSlots[i] != EMPTY){
+				int slot = hash(oldSlots[i]) & mask;
+				while(slots[slot] != EMPTY){
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = oldSlots[i];
+				slotGroups[slot] = oldGroups[i];
+			}
+		}
+	}
+
+	private static int hash(long key){
+		long mixed = key*0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+}
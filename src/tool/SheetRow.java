@@ -0,0 +1,113 @@
+package tool;
+
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+
+/**
+ * A single spreadsheet row as seen by the import methods.
+ * Backed either by a POI HSSFRow (full workbook loads) or by the raw cell values
+ * collected from the HSSF event stream (see DataStreamReader).
+ * Both backings answer getString/getNumeric the same way HSSFCell does.
+ * @dateEdited 10-18-2026
+ */
+class SheetRow {
+	protected static final Object BLANK = new Object(); //Formatted cell without a value
+
+	private HSSFRow row;
+	private Object[] cells;
+	private int rowNum;
+
+	/**
+	 * Wrap a row from a loaded workbook.
+	 * @param row excel row
+	 */
+	SheetRow(HSSFRow row){
+		this.row = row;
+		this.rowNum = row.getRowNum();
+	}
+
+	/**
+	 * Row made from streamed cell values.
+	 * @param rowNum row number in the sheet
+	 * @param cells String, Double, Boolean or BLANK for each column (null if the cell does not exist)
+	 */
+	SheetRow(int rowNum, Object[] cells){
+		this.rowNum = rowNum;
+		this.cells = cells;
+	}
+
+	protected int getRowNum(){
+		return rowNum;
+	}
+
+	protected int getLastCellNum(){
+		if(row != null){
+			return row.getLastCellNum();
+		}
+		return cells.length;
+	}
+
+	/**
+	 * @param col column number
+	 * @return true if there is a cell in this column
+	 */
+	protected boolean hasCell(int col){
+		if(row != null){
+			return row.getCell(col) != null;
+		}
+		return col < cells.length && cells[col] != null;
+	}
+
+	/**
+	 * Get the text value of a cell. Blank cells return "".
+	 * @param col column number
+	 * @return the String value
+	 * @throws IllegalStateException if the cell does not hold text
+	 */
+	protected String getString(int col){
+		if(row != null){
+			return cell(col).getStringCellValue();
+		}
+		Object value = value(col);
+		if(value instanceof String){
+			return (String) value;
+		} else if(value == BLANK){
+			return "";
+		}
+		throw new IllegalStateException("Cannot get a text value from a non-text cell on row " + rowNum);
+	}
+
+	/**
+	 * Get the numeric value of a cell. Blank cells return 0.
+	 * @param col column number
+	 * @return the numeric value
+	 * @throws IllegalStateException if the cell does not hold a number
+	 */
+	protected double getNumeric(int col){
+		if(row != null){
+			return cell(col).getNumericCellValue();
+		}
+		Object value = value(col);
+		if(value instanceof Double){
+			return (Double) value;
+		} else if(value == BLANK){
+			return 0;
+		}
+		throw new IllegalStateException("Cannot get a numeric value from a non-numeric cell on row " + rowNum);
+	}
+
+	private HSSFCell cell(int col){
+		HSSFCell cell = row.getCell(col);
+		if(cell == null){
+			throw new IllegalStateException("Missing cell " + col + " on row " + rowNum);
+		}
+		return cell;
+	}
+
+	private Object value(int col){
+		if(!hasCell(col)){
+			throw new IllegalStateException("Missing cell " + col + " on row " + rowNum);
+		}
+		return cells[col];
+	}
+}
@@ -0,0 +1,83 @@
+package tool;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of repeated Strings (vendors, units, FAO categories, fiscal years...).
+ * Each distinct String is stored once and referred to by a small integer code.
+ * Codes are never reused or removed. Safe to use from several threads.
+ * @dateEdited 10-18-2026
+ */
+class SymbolTable {
+	protected static final int NONE = -1; //code for null
+
+	private ConcurrentHashMap<String,Integer> codes;
+	private volatile String[] symbols;
+	private int size;
+
+	SymbolTable(){
+		codes = new ConcurrentHashMap<String,Integer>();
+		symbols = new String[64];
+		size = 0;
+	}
+
+	/**
+	 * Get the code for a String, adding it to the table if it is new.
+	 * @param symbol String to encode (may be null)
+	 * @return code of the String, or NONE for null
+	 */
+	protected int code(String symbol){
+		if(symbol == null){
+			return NONE;
+		}
+		Integer code = codes.get(symbol);
+		if(code != null){
+			return code;
+		}
+		return add(symbol);
+	}
+
+	/**
+	 * Get the code for a String without adding it.
+	 * @param symbol String to look up
+	 * @return code of the String, or NONE if it is not in the table
+	 */
+	protected int find(String symbol){
+		if(symbol == null){
+			return NONE;
+		}
+		Integer code = codes.get(symbol);
+		return code == null ? NONE : code;
+	}
+
+	/**
+	 * @param code code from this table
+	 * @return the String for the code, or null for NONE
+	 */
+	protected String symbol(int code){
+		if(code == NONE){
+			return null;
+		}
+		return symbols[code];
+	}
+
+	protected int size(){
+		return codes.size();
+	}
+
+	private synchronized int add(String symbol){
+		Integer code = codes.get(symbol);
+		if(code != null){
+			return code;
+		}
+		String[] current = symbols;
+		if(size == current.length){
+			current = Arrays.copyOf(current, size*2);
+		}
+		current[size] = symbol;
+		symbols = current; //publish the new entry before its code
+		codes.put(symbol, size);
+		return size++;
+	}
+}
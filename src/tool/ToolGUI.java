@@ -7,6 +7,10 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -21,6 +25,8 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ScrollPaneLayout;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
 
 /**
  * This class is designed to be the main java gui for this application
@@ -35,7 +41,13 @@ public class ToolGUI extends JFrame{
 	private User user;
 	private JTabbedPane tabs;
 	private JTextArea console;
-	private StringBuffer consoleText;
+	private ConsoleBuffer consoleText; //Last CONSOLE_LINES lines of output
+	private ConcurrentLinkedQueue<String> pendingText; //Output not shown in the console yet
+	private AtomicBoolean flushScheduled;
+	private Timer flushTimer;
+	
+	protected static int CONSOLE_LINES = 5000; //Lines kept in the console
+	private static final int FRAME_MILLIS = 16; //Output is shown at most once per frame
 	private JPanel navigationPanel;
 	protected JTextField inputLine;
 	protected JTextField userName;
@@ -44,6 +56,9 @@ public class ToolGUI extends JFrame{
 		super("Nitrogen Footprint: Excel Tool");
 		this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 		this.user = user;
+		consoleText = new ConsoleBuffer(CONSOLE_LINES);
+		pendingText = new ConcurrentLinkedQueue<String>();
+		flushScheduled = new AtomicBoolean();
 		this.setBackground(Color.black);
 		this.setLayout(new BoxLayout(this.getContentPane(), BoxLayout.X_AXIS));
 		this.setPreferredSize(user.visualVal.fullScreen);
@@ -54,6 +69,7 @@ public class ToolGUI extends JFrame{
 		mainPanel.add(addNavigation());
 		mainPanel.add(tabs);
 		addConsole();
+		addTab(new JobPanel(user), "Jobs");
 		this.addWindowListener(new java.awt.event.WindowAdapter() {
 			public void windowClosing(WindowEvent e){
 				user.utils.close();
@@ -102,10 +118,14 @@ public class ToolGUI extends JFrame{
 	private void addConsole(){
 		JPanel consolePanel = new JPanel();
 		user.visualVal.configurePanel(consolePanel, "y", VisualValues.SUBTAB_SIZE, Color.darkGray, null);
-		if(consoleText == null){
-			consoleText = new StringBuffer();
-		}
-		console = new JTextArea(consoleText.toString());
+		console = new JTextArea(consoleText.text());
+		pendingText.clear();
+		flushTimer = new Timer(FRAME_MILLIS, new ActionListener(){
+			public void actionPerformed(ActionEvent e){
+				flushConsole();
+			}
+		});
+		flushTimer.setRepeats(false);
 		console.setBorder(BorderFactory.createTitledBorder("Console Window"));
 		consolePanel.add(Box.createHorizontalGlue());
 		
@@ -137,32 +157,60 @@ public class ToolGUI extends JFrame{
 		addTab(consolePanel, "Console");
 	}
 	
+	/**
+	 * Ask Swing to repaint the window. Long operations run as background jobs, so the event dispatch
+	 * thread is free to do it.
+	 */
 	protected boolean updateGUI(){
-		try{
-			this.paint(getGraphics());
-			return true;
-		} catch(Exception e){
-			return false;
-		}
+		this.repaint();
+		return true;
 	}
 	
+	/**
+	 * Add a line to the console. May be called from any thread.
+	 * The line is kept in the console buffer right away, and shown by the next flush on the event dispatch
+	 * thread, so a burst of output is one update of the console instead of one per line.
+	 * @param append line to add
+	 */
 	protected void consoleOut(String append){
-		if(consoleText == null){
-			consoleText = new StringBuffer();
-			consoleText.append(append);
-		} else if(console == null){
-			consoleText.append('\n' + append);
-		} else{
-			consoleText.append('\n' + append);
-			console.setText(consoleText.toString());
-			if(!updateGUI()){
-				System.out.println(append);
+		consoleText.append(append);
+		pendingText.add(append);
+		if(console != null && flushScheduled.compareAndSet(false, true)){
+			flushTimer.start();
+		}
+	}
+	
+	/**
+	 * Append the pending output to the end of the console and drop the lines past CONSOLE_LINES.
+	 * Only changes the end and the start of the document, so the cost does not grow with the history.
+	 */
+	private void flushConsole(){
+		flushScheduled.set(false);
+		StringBuilder text = new StringBuilder();
+		String line;
+		while((line = pendingText.poll()) != null){
+			if(text.length() > 0 || console.getDocument().getLength() > 0){
+				text.append('\n');
 			}
+			text.append(line);
+		}
+		if(text.length() == 0){
+			return;
 		}
+		console.append(text.toString());
+		int excess = console.getLineCount() - consoleText.capacity();
+		if(excess > 0){
+			try{
+				console.getDocument().remove(0, console.getLineStartOffset(excess));
+			} catch(BadLocationException e){
+				console.setText(consoleText.text());
+			}
+		}
+		console.setCaretPosition(console.getDocument().getLength());
 	}
 	
 	protected String getConsoleText(){
-		return consoleText.toString();
+		return consoleText.text();
 	}
 	
 	public class ButtonListener implements ActionListener{
@@ -183,25 +231,57 @@ public class ToolGUI extends JFrame{
 			}
 		}
 		
+		/**
+		 * Choose the file on the event dispatch thread, then import or categorize it as a background job.
+		 * Several purchase files, or a directory of them, can be chosen to categorize them at the same time.
+		 */
 		private void fileButtons(){
 			JFileChooser fc = new JFileChooser();
+			if(!button.getName().equals("Data")){
+				fc.setMultiSelectionEnabled(true);
+				fc.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+			}
 			if(fc.showOpenDialog(tabs) == JFileChooser.APPROVE_OPTION){
-				File file = fc.getSelectedFile();
-				if(button.getName().equals("Data")){
-					try {
-						user.resources.importNewDataExcel(file);
-					} catch (IOException e1) {
-						consoleOut("Failed to load new Data.xls");
-					}
+				final File file = fc.getSelectedFile();
+				final File[] files = fc.getSelectedFiles();
+				if(!button.getName().equals("Data") && (files.length > 1 || file.isDirectory())){
+					user.jobs.submit("Categorize " + (files.length > 1 ? files.length + " files" : file.getName()), true,
+							new JobExecutor.Task(){
+						@Override
+						public void run() throws IOException {
+							List<File> purchases = CategorizeQueue.purchaseFiles(Arrays.asList(files));
+							if(purchases.isEmpty()){
+								user.out("No purchase files to categorize.");
+							} else{
+								new CategorizeQueue(user.resources).run(purchases);
+							}
+						}
+					});
+				} else if(button.getName().equals("Data")){
+					user.jobs.submit("Import " + file.getName(), true, new JobExecutor.Task(){
+						@Override
+						public void run() {
+							try {
+								user.resources.importNewDataExcel(file);
+							} catch (IOException e1) {
+								user.out("Failed to load new Data.xls");
+							}
+						}
+					});
 				} else{
-					try {
-						user.resources.runNewCategorization(file);
-					} catch (IOException e1) {
-						user.out("Failed to load new Footprint");
-						e1.printStackTrace();
-					} catch (IllegalArgumentException e){
-						user.out("Footprint already completed (already have a sheet named 'calculated sheet')");
-					}
+					user.jobs.submit("Categorize " + file.getName(), true, new JobExecutor.Task(){
+						@Override
+						public void run() {
+							try {
+								user.resources.runNewCategorization(file);
+							} catch (IOException e1) {
+								user.out("Failed to load new Footprint");
+								e1.printStackTrace();
+							} catch (IllegalArgumentException e){
+								user.out("Footprint already completed (already have a sheet named 'calculated sheet')");
+							}
+						}
+					});
 				}
 			} else{
 				user.out("Stopped due to user cancelation selection...");
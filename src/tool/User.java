@@ -1,5 +1,10 @@
 package tool;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * This class interacts with all parts of the application.
  * It also contains the main method for the program.
@@ -15,7 +20,9 @@ public class User {
 	protected ExcelReader resources;
 	protected VisualValues visualVal;
 	protected ToolGUI gui;
+	protected JobExecutor jobs; //Runs the long commands in the background
 	protected DataLogger log;
+	protected boolean headless; //No GUI or dialogs (see Batch): saved files are not opened
 	private StringBuffer toPrint;
 	private boolean programCompleted;
 	String fiscalYear;
@@ -41,6 +48,23 @@ public class User {
 		}
 	}
 
+	/**
+	 * Constructor for a User without the name prompt or the GUI (i.e., for benchmarks).
+	 * Output is sent to System.out. Resources are not loaded; set resources to an ExcelReader when needed.
+	 * Missing files are reported instead of asked for with a file chooser.
+	 * @param userName name used for the logger and when importing new data
+	 * @dateEdited 10-18-2026
+	 */
+	protected User(String userName){
+		utils = new Utilities(this);
+		user = userName;
+		headless = true;
+		toPrint = new StringBuffer();
+		programCompleted = false;
+		log = new DataLogger(utils);
+		fiscalYear = utils.getFiscalYear();
+	}
+
 	/**
 	 * Main initialization for the program.
 	 * It will start by initializing the GUI, followed by the data.xls sheet
@@ -53,6 +77,7 @@ public class User {
 		toPrint = new StringBuffer();//for the output buffer.
 		programCompleted = false;//completion of the 
 		visualVal = new VisualValues();
+		jobs = new JobExecutor(this);
 		gui = new ToolGUI(this);
 		try{
 			resources = new ExcelReader(this);
@@ -85,7 +110,9 @@ public class User {
 				gui.consoleOut(text);
 			}
 		} else{
-			toPrint.append("\n" + text);
+			if(!headless){
+				toPrint.append("\n" + text); //Shown in the GUI's console once it is up
+			}
 			System.out.println(text);
 		}
 	}
@@ -98,9 +125,14 @@ public class User {
 	public void in(String input){
 		out(gui.userName.getText()+ input);
 		if(input.equals("clean")){
-			resources.cleanData(null);
-			log.newEntry(user, " cleaned data.xls");
-			out("data cleaned.");
+			runJob("Clean data.xls", true, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					resources.cleanData(null);
+					log.newEntry(user, " cleaned data.xls");
+					out("data cleaned.");
+				}
+			});
 		} else if(input.contains("change userName")){
 			log.newEntry(user, " changed userName to " + input.substring(16));
 			user = input.substring(16);
@@ -112,12 +144,76 @@ public class User {
 			utils.close();
 			gui.dispose();
 		} else if(input.equals("print data")){
-			out("Printing to GUI console...");
-			out(resources.print());
+			runJob("Print data", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					out("Printing to GUI console...");
+					out(resources.print());
+				}
+			});
 		} else if(input.equals("move console")){
 			System.out.println(gui.getConsoleText());
+		} else if(input.startsWith("set aggregation ")){
+			String mode = input.substring(16).trim();
+			if(mode.equals("adjacent")){
+				Categorize.AGGREGATION = Categorize.ADJACENT;
+			} else if(mode.equals("hash")){
+				Categorize.AGGREGATION = Categorize.HASH;
+			} else if(mode.equals("sort")){
+				Categorize.AGGREGATION = Categorize.SORT;
+			} else{
+				mode = null;
+			}
+			if(mode == null){
+				out("Unknown aggregation. Use adjacent, hash or sort.");
+			} else{
+				out("Purchase rows will be grouped by " + mode + " aggregation.");
+			}
+		} else if(input.startsWith("set cost totals ")){
+			String mode = input.substring(16).trim();
+			if(mode.equals("compensated")){
+				Accumulators.COST_MODE = Accumulators.COMPENSATED;
+				out("Costs will be totaled as compensated sums.");
+			} else if(mode.equals("cents")){
+				Accumulators.COST_MODE = Accumulators.CENTS;
+				out("Costs will be rounded to cents per purchase and totaled exactly.");
+			} else{
+				out("Unknown cost totals. Use compensated or cents.");
+			}
+		} else if(input.equals("set approximate matching on")){
+			ExcelWriter.APPROXIMATE_MATCHING = true;
+			out("Purchases with no exact match will be matched by approximate name (marked in the calculated sheet).");
+		} else if(input.equals("set approximate matching off")){
+			ExcelWriter.APPROXIMATE_MATCHING = false;
+			out("Purchases will only be matched by exact name.");
+		} else if(input.startsWith("set column profile ")){
+			String profile = input.substring(19).trim();
+			if(!utils.setPurchaseProfile(profile)){
+				out("Unknown column profile. Use auto or one of: " + utils.profileNames());
+			} else if(profile.equalsIgnoreCase("auto")){
+				out("Purchase files will be read with the columns of settings.txt, or with the columns named in their header row when those do not fit.");
+			} else{
+				out("Purchase files will be read with the columns of profile " + profile + ".");
+			}
+		} else if(input.startsWith("categorize all ")){
+			final File path = new File(input.substring(15).trim());
+			runJob("Categorize " + path.getName(), true, new JobExecutor.Task(){
+				@Override
+				public void run() throws IOException {
+					List<File> files = CategorizeQueue.purchaseFiles(Arrays.asList(path));
+					if(files.isEmpty()){
+						out("No purchase files in " + path.getPath());
+					} else{
+						new CategorizeQueue(resources).run(files);
+					}
+				}
+			});
 		} else if(input.equals("print log")){
 			out(log.out());
+		} else if(input.startsWith("print log ")){
+			out(log.out(input.substring(10)));
+		} else if(input.startsWith("print notes ")){
+			out(log.out("notes " + input.substring(12)));
 		} else if(input.contains("log note")){
 			String note = input.substring(8);
 			log.newEntry(user, "Note: " + note);
@@ -125,9 +221,14 @@ public class User {
 		} else if(input.equals("about")){
 			out(utils.about());
 		} else if(input.equals("open uncategorized")){
-			out("attempting to make uncategorized list...");
-			resources.uncategorizedItems();
-			out("uncategorized list made.");
+			runJob("Uncategorized list", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					out("attempting to make uncategorized list...");
+					resources.uncategorizedItems();
+					out("uncategorized list made.");
+				}
+			});
 		} else if(input.equals("print notes")){
 			out(log.out(true));
 		} else if(input.contains("open file ")){
@@ -138,18 +239,89 @@ public class User {
 			fiscalYear = input.substring(19);
 			out("updated fiscal year to " + fiscalYear);
 		} else if(input.contains("print from fiscal year")){
-			out("Items from fiscal year " + input.substring(22)+"\n"+ resources.getItemsFromFY(input.substring(22)));
-			out("All items printed.");
+			final String year = input.substring(22);
+			runJob("Print fiscal year" + year, false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					out("Items from fiscal year " + year+"\n"+ resources.getItemsFromFY(year));
+					out("All items printed.");
+				}
+			});
 		} else if(input.equals("most frequent")){
-			resources.mostFrequentItems();
-			out("most frequent items list made.");
+			runJob("Most frequent items", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					resources.mostFrequentItems();
+					out("most frequent items list made.");
+				}
+			});
 		} else if(input.equals("backup")){
-			ExcelWriter.backupData(this);
-			out("Data backup successful.");
+			final User session = this;
+			runJob("Backup data.xls", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					if(ExcelWriter.backupData(session)){
+						out("Data backup successful.");
+					}
+				}
+			});
+		} else if(input.equals("list backups")){
+			final User session = this;
+			runJob("List backups", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					out(ExcelWriter.listBackups(session));
+				}
+			});
+		} else if(input.startsWith("restore backup ")){
+			final User session = this;
+			final String name = input.substring(15).trim();
+			runJob("Restore " + name, true, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					ExcelWriter.restoreData(session, name);
+				}
+			});
+		} else if(input.equals("compact data")){
+			final User session = this;
+			runJob("Compact data.xls", true, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					ExcelWriter.compactData(session);
+				}
+			});
 		} else if(input.equals("get sheet names")){
-			out(resources.getSheetNames());
+			runJob("Get sheet names", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					out(resources.getSheetNames());
+				}
+			});
+		} else if(input.equals("jobs")){
+			printJobs();
+		} else if(input.startsWith("cancel job ")){
+			try{
+				int id = Integer.parseInt(input.substring(11).trim());
+				out(jobs.cancel(id) ? "Cancelling job " + id + "..." : "Job " + id + " was not cancelled.");
+			} catch(NumberFormatException e){
+				out("Follow the command with the job number.");
+			}
+		} else if(input.startsWith("tab info ") || input.startsWith("tabs from file ") || input.startsWith("tabs by user ")){
+			final String command = input;
+			runJob("Tab info", false, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					out(resources.getTabInfo(command));
+				}
+			});
 		} else if(input.contains("remove")){
-			resources.remove(input);
+			final String command = input;
+			runJob("Remove sheets", true, new JobExecutor.Task(){
+				@Override
+				public void run() {
+					resources.remove(command);
+				}
+			});
 		} else if(input.equals("get fiscal year")){
 			out(fiscalYear);
 		} else{
@@ -164,6 +336,7 @@ public class User {
 			commands.append("\tprint data -print out to the gui console all of the data.\n");
 			commands.append("\tprint log -Move the contents of the logger to the console.\n");
 			commands.append("\tprint notes -Print out all of the logger's notes.\n");
+			commands.append("\tprint log [options] -Print part of the log. Options: notes, errors, user [name], from [MM-dd-yyyy], to [MM-dd-yyyy], last [number].\n");
 			commands.append("\tshow data -show the current data using excel viewer\n");
 			commands.append("\tmove console -Move the contents of the console to the output buffer.\n");
 			commands.append("\tlog note -Write a note for the logger.\n");
@@ -174,9 +347,22 @@ public class User {
 			commands.append("\tprint from fiscal year -Follow by \"FY\" and the final two numbers of the year.\n");
 			commands.append("\tget fiscal year -Get the current fiscal year that the program is using\n");
 			commands.append("\tmost frequent -Get the most frequent items\n");
+			commands.append("\tset aggregation -Follow by adjacent (purchase file sorted by item, the default), hash or sort (unsorted purchase file).\n");
+			commands.append("\tset cost totals -Follow by compensated (the default) or cents (each purchase rounded to the cent).\n");
+			commands.append("\tset approximate matching -Follow by on or off (the default): match purchases by approximate name when there is no exact match. Matched rows are marked in the calculated sheet.\n");
+			commands.append("\tcategorize all -Follow by a directory to categorize its purchase files at the same time.\n");
+			commands.append("\tset column profile -Follow by the name of a profile in settings.txt, or auto (the default) to use the settings.txt columns unless a file's header row shows they do not fit.\n");
 			commands.append("\tbackup -Backup the current data.xls file.\n");
-			commands.append("\tremove [file] [sheetNumber] -remove a sheet from the designated file.\n");
+			commands.append("\tlist backups -Show the backups of data.xls that can be restored.\n");
+			commands.append("\trestore backup -Follow by the name of a backup to put data.xls back as it was (the current data.xls is backed up first).\n");
+			commands.append("\tcompact data -Write the changes saved in the data.xls journal into data.xls.\n");
+			commands.append("\tremove [file] [sheetNumber]... -remove sheets from the designated file (numbered as in get sheet names).\n");
 			commands.append("\tget sheet names -Show the sheet numbers for the associated sheet names\n");
+			commands.append("\ttab info -Follow by a sheet number or name to show its source file, author and date.\n");
+			commands.append("\ttabs from file -Follow by a file name to show the sheets added from it.\n");
+			commands.append("\ttabs by user -Follow by a user name to show the sheets the user added.\n");
+			commands.append("\tjobs -Show the background jobs and how long they have been running.\n");
+			commands.append("\tcancel job -Follow by the number of the job to cancel.\n");
 			commands.append("\n\n");
 			out(commands.toString());
 		}
@@ -184,6 +370,33 @@ public class User {
 		gui.inputLine.setText("");
 	}
 	
+	/**
+	 * Run a long command as a background job, or right away if there is no job executor (no GUI).
+	 * @param name name of the job
+	 * @param exclusive true if the command changes currentData or data.xls
+	 * @param task the command
+	 * @dateEdited 10-18-2026
+	 */
+	private void runJob(String name, boolean exclusive, JobExecutor.Task task){
+		if(jobs != null){
+			jobs.submit(name, exclusive, task);
+		} else{
+			try{
+				task.run();
+			} catch(Exception e){
+				utils.exceptionHandler(e, name + " failed.");
+			}
+		}
+	}
+	
+	private void printJobs(){
+		StringBuffer list = new StringBuffer("Jobs:");
+		for(JobExecutor.Job job : jobs.getJobs()){
+			list.append("\n\t" + job.id + ": " + job.name + " - " + job.getStatus() + " (" + job.elapsedText() + ")");
+		}
+		out(list.toString());
+	}
+	
 	public static void main(String[] args){
 		new User();
 	}
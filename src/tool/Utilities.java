@@ -9,11 +9,15 @@ import java.util.Date;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 
+import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 
 /**
@@ -28,12 +32,19 @@ public class Utilities {
 	private Scanner reader;
 	
 	private HashMap<String,String> filePaths;
+	private AtomicInteger errors; //Errors reported through exceptionHandler
+	private ColumnSchema columns; //Columns of data.xls from settings.txt
+	private TreeMap<String,ColumnSchema> profiles; //Purchase file layouts from settings.txt, by lower case name
+	private ColumnSchema purchaseProfile; //Profile used for every purchase file (null: found from each file's header)
 	
 	
 	public Utilities(User user){
 		this.user=user;
 		reader = new Scanner(System.in);
 		filePaths = new HashMap<String,String>();
+		errors = new AtomicInteger();
+		columns = ColumnSchema.DEFAULT;
+		profiles = new TreeMap<String,ColumnSchema>();
 		filePaths.put("log","src/resources/log.txt");
 		filePaths.put("data","src/resources/data.xls");
 		filePaths.put("info","src/resources/info.txt");
@@ -100,8 +111,21 @@ public class Utilities {
 		
 	}
 	
+	/**
+	 * Point one of the program's files (log, data, info, settings, backups) at another path.
+	 * @param fileName the short name of the file
+	 * @param path new path of the file
+	 */
+	protected void setFilePath(String fileName, String path){
+		filePaths.put(fileName, path);
+	}
+	
 	private File checkFile(File file, String fileName){
 		if(!file.exists()){
+			if(user.headless){
+				System.err.println("An error has occurred in loading a critical resource: " + fileName + " (" + file.getPath() + " not found)");
+				return null;
+			}
 			fileError(fileName);
 			JFileChooser fc = new JFileChooser();
 			if(fc.showOpenDialog(new JFrame()) == JFileChooser.APPROVE_OPTION){
@@ -130,10 +154,14 @@ public class Utilities {
 	 */
 	public void close() {
 		reader.close();
+		if(user.jobs != null){
+			user.jobs.shutdown();
+		}
 		if(user.gui != null){
 			System.out.println(user.gui.getConsoleText());
 		}
 		user.log.newEntry(user.user, " logged out.");
+		user.log.close();
 	}
 
 	/**
@@ -154,7 +182,7 @@ public class Utilities {
 	}
 	
 	private String numberOfCategorizations() throws FileNotFoundException, IOException {
-			HSSFWorkbook data = new HSSFWorkbook(new FileInputStream(getFile("data")));
+			HSSFWorkbook data = user.resources.sharedBook("data");
 			int numSheets = data.getNumberOfSheets()-1;
 			int numItems = user.resources.currentData.size();
 		return "Total Number of data.xls pages (versions): " + numSheets + '\n' +"Current number of categorized items: " + numItems;
@@ -171,32 +199,46 @@ public class Utilities {
 		return str;
 	}
 	
+	/**
+	 * Read settings.txt. After the "Settings" line come "KEY: value" lines in any order: the historical settings
+	 * and the columns of data.xls (see ColumnSchema.KEYS). Then, optionally:
+	 * 		"profile NAME:" followed by the columns of a purchase file layout that differ from data.xls's
+	 * 		"files:" followed by the paths of the program's files (must be the last section)
+	 * @dateEdited 10-18-2026
+	 * @throws FileNotFoundException
+	 */
 	private void settings() throws FileNotFoundException{
 		File settings = getFile("settings");
 		Scanner scr = new Scanner(new FileInputStream(settings));
 		if(scr.nextLine().equals("Settings")){
-			scr.nextLine();
-			ExcelReader.HISTORICAL_DATA = getLastChar(scr.nextLine()) =='t';
-			ExcelReader.HISTORICAL_TRUE = scr.nextLine().split(": ")[1];
-			ExcelReader.ITEM_NAME = getNum(scr.nextLine());
-			ExcelReader.RCV_UNIT = getNum(scr.nextLine());
-			ExcelReader.VENDOR = getNum(scr.nextLine());
-			ExcelReader.QUANTITY = getNum(scr.nextLine());
-			ExcelReader.PRICE = getNum(scr.nextLine());
-			ExcelReader.READ_FAO = getNum(scr.nextLine());
-			ExcelReader.READ_WEIGHT_PER_UNIT = getNum(scr.nextLine());
-			ExcelReader.READ_WEIGHT_UNIT = getNum(scr.nextLine());
-			ExcelReader.WRITE_FAO = getNum(scr.nextLine());
-			ExcelReader.WRITE_WEIGHT_PER_UNIT = getNum(scr.nextLine());
-			ExcelReader.WRITE_WEIGHT_UNIT = getNum(scr.nextLine());
-			ExcelReader.COST = getNum(scr.nextLine());
-			if(scr.hasNext()){
-				if(scr.nextLine().equals("files:")){
-					while(scr.hasNext()){
-						addFileFromSettings(scr.nextLine());
-					}
+			HashMap<String,Integer> dataColumns = new HashMap<String,Integer>();
+			TreeMap<String,HashMap<String,Integer>> profileColumns = new TreeMap<String,HashMap<String,Integer>>();
+			HashMap<String,Integer> current = dataColumns; //Columns of the section being read
+			boolean files = false;
+			while(scr.hasNext()){
+				String line = scr.nextLine().trim();
+				if(line.isEmpty()){
+					continue;
+				} else if(files){
+					addFileFromSettings(line);
+				} else if(line.equals("files:")){
+					files = true;
+				} else if(line.startsWith("profile ") && line.endsWith(":")){
+					current = new HashMap<String,Integer>();
+					profileColumns.put(line.substring(8, line.length()-1).trim().toLowerCase(), current);
+				} else if(line.startsWith("Calculate Historical")){
+					ExcelReader.HISTORICAL_DATA = getLastChar(line) =='t';
+				} else if(line.startsWith("Historical True")){
+					ExcelReader.HISTORICAL_TRUE = line.split(": ")[1];
+				} else{
+					current.put(line.split(":")[0].trim(), getNum(line));
 				}
 			}
+			columns = ColumnSchema.DEFAULT.with("settings.txt", dataColumns);
+			profiles.clear();
+			for(Map.Entry<String,HashMap<String,Integer>> profile : profileColumns.entrySet()){
+				profiles.put(profile.getKey(), columns.with("profile " + profile.getKey(), profile.getValue()));
+			}
 			
 			System.out.println("All settings updated.");
 		} else{
@@ -218,7 +260,67 @@ public class Utilities {
 	}
 	
 	private int getNum(String nextLine){
-		return Integer.parseInt(nextLine.split(": ")[1]);
+		return Integer.parseInt(nextLine.split(":")[1].trim());
+	}
+	
+	/**
+	 * @return the columns of data.xls, from settings.txt
+	 */
+	protected ColumnSchema columns(){
+		return columns;
+	}
+	
+	/**
+	 * Choose the columns of the purchase files categorized from now on.
+	 * @param name name of a profile in settings.txt, or "auto" to find the columns from each file's header row
+	 * @return false if there is no profile with the name
+	 * @dateEdited 10-18-2026
+	 */
+	protected boolean setPurchaseProfile(String name){
+		if(name.equalsIgnoreCase("auto")){
+			purchaseProfile = null;
+			return true;
+		}
+		ColumnSchema profile = profiles.get(name.trim().toLowerCase());
+		if(profile != null){
+			purchaseProfile = profile;
+		}
+		return profile != null;
+	}
+	
+	/**
+	 * @return the names of the column profiles in settings.txt
+	 */
+	protected String profileNames(){
+		return profiles.isEmpty() ? "(none)" : String.join(", ", profiles.keySet());
+	}
+	
+	/**
+	 * The columns of a purchase file: the chosen profile if there is one, else the columns of settings.txt,
+	 * unless the sheet's first row shows they do not fit and names the columns to use instead (see
+	 * ColumnSchema.detect). Columns other than the settings.txt ones are reported and logged.
+	 * Only reads the settings, so files can be resolved from any thread.
+	 * @param sheet first sheet of the purchase file
+	 * @param fileName name of the purchase file, for the log
+	 * @return columns of the file
+	 * @dateEdited 10-18-2026
+	 */
+	protected ColumnSchema purchaseColumns(HSSFSheet sheet, String fileName){
+		ColumnSchema schema = purchaseProfile;
+		if(schema == null){
+			schema = columns.detect(sheet.getRow(sheet.getFirstRowNum()));
+			if(schema == null){
+				user.out("The header of " + fileName + " does not fit the columns of settings.txt, and does not name"
+						+ " each purchase column once. Reading it with the columns of settings.txt.");
+				user.log.newEntry(user.user, " read " + fileName + " with the settings.txt columns, which its header does not fit.");
+				return columns;
+			}
+		}
+		if(schema != columns){
+			user.out("Reading the columns of " + fileName + " from " + schema);
+			user.log.newEntry(user.user, " read " + fileName + " with the columns of " + schema);
+		}
+		return schema;
 	}
 
 	public void test() {
@@ -234,7 +336,15 @@ public class Utilities {
 	}
 	
 	public void exceptionHandler(Exception e,String message){
+		errors.incrementAndGet();
 		user.log.newEntry(user.user, "Error: " + e + " " + message);
 		user.out(message);
 	}
+
+	/**
+	 * @return number of errors reported through exceptionHandler during this session
+	 */
+	protected int errorCount(){
+		return errors.get();
+	}
 }
@@ -0,0 +1,102 @@
+package tool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+
+/**
+ * Workbooks parsed during this session, so data.xls is not parsed again for every command.
+ * Keyed by file path, and only used while the file's length and modification time (and the length of its
+ * journal) are the same as when it was parsed.
+ * The cached workbooks are shared: they must only be read. Anything that changes a workbook
+ * loads its own copy with read() (ExcelReader.loadBook).
+ * @dateEdited 10-18-2026
+ */
+class WorkbookCache {
+	protected static int MAX_BOOKS = 3; //Least recently used workbooks past this are dropped
+
+	private LinkedHashMap<String, CachedBook> books;
+
+	WorkbookCache(){
+		books = new LinkedHashMap<String, CachedBook>(8, 0.75f, true);
+	}
+
+	/**
+	 * Get the shared workbook for a file, parsing it only if it is not cached or has changed.
+	 * @param file Excel file
+	 * @return shared, read only workbook
+	 * @throws IOException
+	 */
+	protected synchronized HSSFWorkbook get(File file) throws IOException{
+		String path = file.getAbsolutePath();
+		CachedBook cached = books.get(path);
+		if(cached != null && cached.isCurrent(file)){
+			return cached.book;
+		}
+		cached = new CachedBook(file);
+		books.put(path, cached);
+		Iterator<Map.Entry<String, CachedBook>> oldest = books.entrySet().iterator();
+		while(books.size() > MAX_BOOKS){
+			oldest.next();
+			oldest.remove();
+		}
+		return cached.book;
+	}
+
+	/**
+	 * Drop a file from the cache (i.e., after writing it).
+	 * @param file Excel file
+	 */
+	protected synchronized void invalidate(File file){
+		books.remove(file.getAbsolutePath());
+	}
+
+	protected synchronized void clear(){
+		books.clear();
+	}
+
+	/**
+	 * Parse a new copy of a workbook, with the changes in its journal applied (only data.xls has one).
+	 * @param file Excel file
+	 * @return workbook that belongs to the caller
+	 * @throws IOException
+	 */
+	protected static HSSFWorkbook read(File file) throws IOException{
+		FileInputStream input = new FileInputStream(file);
+		HSSFWorkbook book;
+		try{
+			book = new HSSFWorkbook(input);
+		} finally{
+			input.close();
+		}
+		new DataJournal(file).apply(book);
+		return book;
+	}
+
+	/**
+	 * A parsed workbook and the state of the file it was parsed from.
+	 */
+	private static class CachedBook {
+		private HSSFWorkbook book;
+		private long length;
+		private long modified;
+		private long journalLength;
+
+		private CachedBook(File file) throws IOException{
+			length = file.length();
+			modified = file.lastModified();
+			journalLength = DataJournal.journalFile(file).length();
+			book = read(file);
+		}
+
+		private boolean isCurrent(File file){
+			return file.length() == length && file.lastModified() == modified
+					&& DataJournal.journalFile(file).length() == journalLength;
+		}
+	}
+}